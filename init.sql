@@ -1,3 +1,7 @@
+-- Creates the databases with the original, version 1 schema and sample players.
+-- The application takes such a database as migration version 1 and applies db/migration from there on startup,
+-- which also adds the version column and the player_ngram index for the players inserted here.
+
 CREATE DATABASE IF NOT EXISTS rpg
     COLLATE utf8mb4_unicode_ci;
 CREATE DATABASE IF NOT EXISTS test
@@ -5,6 +9,10 @@ CREATE DATABASE IF NOT EXISTS test
 
 USE rpg;
 
+DROP TABLE IF EXISTS flyway_schema_history;
+DROP TABLE IF EXISTS data_version;
+DROP TABLE IF EXISTS player_count;
+DROP TABLE IF EXISTS player_ngram;
 DROP TABLE IF EXISTS player;
 
 CREATE TABLE player
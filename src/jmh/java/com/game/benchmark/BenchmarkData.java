@@ -0,0 +1,134 @@
+package com.game.benchmark;
+
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TimeZone;
+
+/**
+ * Valid random players with a fixed seed, so every run measures the same data.
+ * <p>
+ * Races and professions follow an uneven mix, experience is exponentially distributed so that most players
+ * are low level, names and titles are made of Cyrillic syllables and feed the trigram index like real ones.
+ */
+public final class BenchmarkData {
+
+    private static final String[] SYLLABLES = {"ар", "ил", "ан", "эл", "ор", "ус", "ка", "ми", "ра", "то", "ве", "ни",
+            "до", "бри", "гор", "ла", "ст", "зе", "фи", "ок"};
+    private static final String[] TITLE_WORDS = {"Храбрый", "Тёмный", "Лесной", "Бродяга", "Мудрец", "Страж",
+            "Ученик", "Охотник", "Повелитель", "Странник", "Кузнец", "Маг"};
+
+    private static final Race[] RACES = Race.values();
+    // HUMAN, DWARF, ELF, GIANT, ORC, TROLL, HOBBIT
+    private static final int[] RACE_WEIGHTS = {30, 12, 15, 5, 15, 8, 15};
+    private static final Profession[] PROFESSIONS = Profession.values();
+    // WARRIOR, ROGUE, SORCERER, CLERIC, PALADIN, NAZGUL, WARLOCK, DRUID
+    private static final int[] PROFESSION_WEIGHTS = {25, 15, 12, 12, 10, 3, 10, 13};
+
+    private static final double MEAN_EXPERIENCE = 400000;
+    private static final int MAX_EXPERIENCE = 10000000;
+
+    private BenchmarkData() {
+    }
+
+    public static List<Player> players(int count, long seed) {
+        List<Player> players = new ArrayList<>(count);
+        generate(count, seed).forEachRemaining(players::add);
+        return players;
+    }
+
+    /**
+     * Generates the players lazily, for data sets that shouldn't sit in memory at once.
+     */
+    public static Iterator<Player> generate(long count, long seed) {
+        Random random = new Random(seed);
+        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+
+        return new Iterator<Player>() {
+            private long generated;
+
+            @Override
+            public boolean hasNext() {
+                return generated < count;
+            }
+
+            @Override
+            public Player next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                generated++;
+                return player(random, calendar);
+            }
+        };
+    }
+
+    public static Player player(Random random) {
+        return player(random, Calendar.getInstance(TimeZone.getTimeZone("UTC")));
+    }
+
+    private static Player player(Random random, Calendar calendar) {
+        calendar.clear();
+        calendar.set(2000 + random.nextInt(1000), random.nextInt(12), 1 + random.nextInt(28));
+
+        Player player = new Player();
+        player.setName(word(random, 2 + random.nextInt(3)));
+        player.setTitle(TITLE_WORDS[random.nextInt(TITLE_WORDS.length)] + " " + word(random, 2 + random.nextInt(4)));
+        player.setRace(RACES[weighted(random, RACE_WEIGHTS)]);
+        player.setProfession(PROFESSIONS[weighted(random, PROFESSION_WEIGHTS)]);
+        player.setBirthday(calendar.getTime());
+        player.setBanned(random.nextInt(10) == 0);
+        player.setExperience(experience(random));
+        return player;
+    }
+
+    public static int experience(Random random) {
+        double value = -Math.log(1 - random.nextDouble()) * MEAN_EXPERIENCE;
+        return (int) Math.max(1, Math.min(MAX_EXPERIENCE, value));
+    }
+
+    public static Race race(Random random) {
+        return RACES[weighted(random, RACE_WEIGHTS)];
+    }
+
+    public static String syllable(Random random) {
+        return SYLLABLES[random.nextInt(SYLLABLES.length)];
+    }
+
+    private static int weighted(Random random, int[] weights) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+
+        int pick = random.nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            pick -= weights[i];
+
+            if (pick < 0) {
+                return i;
+            }
+        }
+
+        return weights.length - 1;
+    }
+
+    private static String word(Random random, int syllables) {
+        StringBuilder word = new StringBuilder();
+
+        for (int i = 0; i < syllables; i++) {
+            word.append(syllable(random));
+        }
+
+        word.setCharAt(0, Character.toUpperCase(word.charAt(0)));
+        return word.length() > 12 ? word.substring(0, 12) : word.toString();
+    }
+}
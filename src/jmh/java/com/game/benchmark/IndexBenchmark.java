@@ -0,0 +1,179 @@
+package com.game.benchmark;
+
+import com.game.entity.Player;
+import com.game.service.LevelTable;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationVersion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The list and count queries of the controller on a large H2 table, migrated either to version 1
+ * (primary key only, {@code indexes=false}) or to the latest version with the filter indexes.
+ * The EXPLAIN plan of every query is printed during setup, so both runs show which index, if any, is used.
+ * The SQL has the shape Hibernate generates for {@code PlayerFilters} and {@code PlayerOrder}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IndexBenchmark {
+
+    private static final String COUNT_BY_RACE_PROFESSION_BANNED =
+            "SELECT COUNT(id) FROM player WHERE race = 'ELF' AND profession = 'DRUID' AND banned = FALSE";
+    private static final String PAGE_BY_RACE_ORDER_BY_LEVEL =
+            "SELECT * FROM player WHERE race = 'ORC' ORDER BY level, id LIMIT 20 OFFSET 100";
+    private static final String PAGE_BY_EXPERIENCE_RANGE =
+            "SELECT * FROM player WHERE experience >= 500000 AND experience <= 600000 ORDER BY experience, id LIMIT 20";
+    private static final String COUNT_BY_BIRTHDAY_RANGE =
+            "SELECT COUNT(id) FROM player WHERE birthday >= DATE '2005-01-01' AND birthday <= DATE '2005-12-31'";
+    private static final String PAGE_ORDER_BY_NAME =
+            "SELECT * FROM player ORDER BY name, id LIMIT 20 OFFSET 200";
+    private static final String PAGE_NOT_BANNED_ORDER_BY_LEVEL =
+            "SELECT * FROM player WHERE banned = FALSE ORDER BY level, id LIMIT 20";
+
+    private static final String[] QUERIES = {COUNT_BY_RACE_PROFESSION_BANNED, PAGE_BY_RACE_ORDER_BY_LEVEL,
+            PAGE_BY_EXPERIENCE_RANGE, COUNT_BY_BIRTHDAY_RANGE, PAGE_ORDER_BY_NAME, PAGE_NOT_BANNED_ORDER_BY_LEVEL};
+
+    private static final String INSERT_SQL = "INSERT INTO player(name, title, race, profession, birthday, banned, "
+            + "experience, level, untilNextLevel) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Param({"200000"})
+    public int rows;
+
+    @Param({"false", "true"})
+    public boolean indexes;
+
+    private EmbeddedDatabase database;
+    private Connection connection;
+
+    @Setup
+    public void setup() throws SQLException {
+        database = new EmbeddedDatabaseBuilder().generateUniqueName(true).setType(EmbeddedDatabaseType.H2).build();
+
+        Flyway.configure()
+                .dataSource(database)
+                .locations("classpath:db/migration")
+                .target(indexes ? MigrationVersion.LATEST : MigrationVersion.fromVersion("1"))
+                .load()
+                .migrate();
+
+        connection = database.getConnection();
+        seed();
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE");
+        }
+
+        System.out.println();
+        System.out.println("Query plans with indexes=" + indexes + ", rows=" + rows);
+        for (String query : QUERIES) {
+            try (Statement statement = connection.createStatement();
+                 ResultSet plan = statement.executeQuery("EXPLAIN " + query)) {
+                plan.next();
+                System.out.println(plan.getString(1).replaceAll("\\s+", " "));
+            }
+        }
+    }
+
+    private void seed() throws SQLException {
+        LevelTable levelTable = new LevelTable(50);
+        Iterator<Player> players = BenchmarkData.generate(rows, 42);
+
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+            for (int i = 1; players.hasNext(); i++) {
+                Player player = players.next();
+                levelTable.apply(player);
+                statement.setString(1, player.getName());
+                statement.setString(2, player.getTitle());
+                statement.setString(3, player.getRace().name());
+                statement.setString(4, player.getProfession().name());
+                statement.setDate(5, new Date(player.getBirthday().getTime()));
+                statement.setBoolean(6, player.getBanned());
+                statement.setInt(7, player.getExperience());
+                statement.setInt(8, player.getLevel());
+                statement.setInt(9, player.getUntilNextLevel());
+                statement.addBatch();
+
+                if (i % 5000 == 0) {
+                    statement.executeBatch();
+                }
+            }
+
+            statement.executeBatch();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+        database.shutdown();
+    }
+
+    private long run(String query) throws SQLException {
+        long checksum = 0;
+
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(query)) {
+            while (resultSet.next()) {
+                checksum += resultSet.getLong(1);
+            }
+        }
+
+        return checksum;
+    }
+
+    @Benchmark
+    public long countByRaceProfessionBanned() throws SQLException {
+        return run(COUNT_BY_RACE_PROFESSION_BANNED);
+    }
+
+    @Benchmark
+    public long pageByRaceOrderByLevel() throws SQLException {
+        return run(PAGE_BY_RACE_ORDER_BY_LEVEL);
+    }
+
+    @Benchmark
+    public long pageByExperienceRange() throws SQLException {
+        return run(PAGE_BY_EXPERIENCE_RANGE);
+    }
+
+    @Benchmark
+    public long countByBirthdayRange() throws SQLException {
+        return run(COUNT_BY_BIRTHDAY_RANGE);
+    }
+
+    @Benchmark
+    public long pageOrderByName() throws SQLException {
+        return run(PAGE_ORDER_BY_NAME);
+    }
+
+    @Benchmark
+    public long pageNotBannedOrderByLevel() throws SQLException {
+        return run(PAGE_NOT_BANNED_ORDER_BY_LEVEL);
+    }
+}
@@ -0,0 +1,75 @@
+package com.game.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.game.config.WebConfig;
+import com.game.entity.Player;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of a player list with the ObjectMapper the API responses use ({@code streaming}),
+ * against the field-visibility reflection mapping it replaced ({@code reflective}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+    @Param({"3", "100", "1000"})
+    public int size;
+
+    @Param({"reflective", "streaming"})
+    public String serializer;
+
+    private ObjectWriter writer;
+    private List<Player> players;
+
+    @Setup
+    public void setup() {
+        players = BenchmarkData.players(size, 42);
+        long id = 1;
+        for (Player player : players) {
+            player.setId(id++);
+            player.setLevel(10);
+            player.setUntilNextLevel(100);
+        }
+
+        ObjectMapper mapper;
+        if ("streaming".equals(serializer)) {
+            mapper = new WebConfig(new SimpleMeterRegistry(), 10, 1).objectMapper();
+        } else {
+            mapper = Jackson2ObjectMapperBuilder.json().build();
+            mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+            mapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        }
+
+        writer = mapper.writerFor(TypeFactory.defaultInstance().constructCollectionType(List.class, Player.class));
+    }
+
+    @Benchmark
+    public byte[] serializeList() throws JsonProcessingException {
+        return writer.writeValueAsBytes(players);
+    }
+}
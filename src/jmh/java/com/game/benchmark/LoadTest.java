@@ -0,0 +1,284 @@
+package com.game.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.game.config.AppConfig;
+import com.game.config.MyWebAppInit;
+import com.game.config.WebConfig;
+import com.game.controller.PlayerOrder;
+import com.game.service.ImportSummary;
+import com.game.service.PlayerCriteria;
+import com.game.service.PlayerService;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Load test of the whole controller stack, servlet filters included, against the in-memory H2 database of the
+ * dev profile. Every request accepts gzip, like a browser would.
+ * <p>
+ * Seeds {@code load.rows} generated players through the import path, then {@code load.threads} threads send
+ * a weighted mix of list, count, get, create, update and delete requests through MockMvc for
+ * {@code load.warmupSeconds} plus {@code load.durationSeconds}. Only the second phase is measured.
+ * Throughput and p50/p99/p99.9 latencies per endpoint are printed and written as JSON to {@code load.output}.
+ * <p>
+ * Run with {@code mvn -P load test -Dload.rows=1000000}. The generated players are streamed into the import, but H2
+ * keeps every row in this JVM's heap, so millions of rows need a larger {@code -Dload.jvmArgs=-Xmx...}, and the
+ * results include no database I/O.
+ */
+public final class LoadTest {
+
+    enum Endpoint {
+        LIST(40), COUNT(20), GET(25), CREATE(5), UPDATE(7), DELETE(3);
+
+        private final int weight;
+
+        Endpoint(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    private static final PlayerOrder[] ORDERS = PlayerOrder.values();
+
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+    private final AtomicLong maxId;
+
+    private final Map<Endpoint, Recorder> latencies = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, LongAdder> clientErrors = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, LongAdder> serverErrors = new EnumMap<>(Endpoint.class);
+
+    private LoadTest(MockMvc mockMvc, ObjectMapper objectMapper, long maxId) {
+        this.mockMvc = mockMvc;
+        this.objectMapper = objectMapper;
+        this.maxId = new AtomicLong(maxId);
+
+        for (Endpoint endpoint : Endpoint.values()) {
+            latencies.put(endpoint, new Recorder(3));
+            clientErrors.put(endpoint, new LongAdder());
+            serverErrors.put(endpoint, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        long rows = Long.getLong("load.rows", 100000);
+        int threads = Integer.getInteger("load.threads", 8);
+        int warmupSeconds = Integer.getInteger("load.warmupSeconds", 10);
+        int durationSeconds = Integer.getInteger("load.durationSeconds", 30);
+        String output = System.getProperty("load.output", "target/load-result.json");
+
+        AnnotationConfigWebApplicationContext context = new AnnotationConfigWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.getEnvironment().setActiveProfiles("dev");
+        context.register(AppConfig.class, WebConfig.class);
+        context.refresh();
+
+        try {
+            PlayerService playerService = context.getBean(PlayerService.class);
+
+            long start = System.nanoTime();
+            ImportSummary seeded = playerService.importPlayers(BenchmarkData.generate(rows, 42));
+            double seedSeconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("Seeded %d players in %.1f s (%.0f rows/s)%n", seeded.getAccepted(), seedSeconds, seeded.getAccepted() / seedSeconds);
+
+            LoadTest loadTest = new LoadTest(
+                    MockMvcBuilders.webAppContextSetup(context).addFilters(MyWebAppInit.servletFilters()).build(),
+                    context.getBean(ObjectMapper.class),
+                    playerService.getCount(new PlayerCriteria()));
+
+            loadTest.run(threads, warmupSeconds);
+            loadTest.reset();
+            long measuredStart = System.nanoTime();
+            loadTest.run(threads, durationSeconds);
+            double measuredSeconds = (System.nanoTime() - measuredStart) / 1e9;
+
+            loadTest.report(rows, threads, measuredSeconds, new File(output));
+        } finally {
+            context.close();
+        }
+    }
+
+    private void run(int threads, int seconds) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        for (int i = 0; i < threads; i++) {
+            executor.execute(() -> {
+                while (running.get()) {
+                    call(pick(ThreadLocalRandom.current()));
+                }
+            });
+        }
+
+        TimeUnit.SECONDS.sleep(seconds);
+        running.set(false);
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    private void reset() {
+        for (Endpoint endpoint : Endpoint.values()) {
+            latencies.get(endpoint).reset();
+            clientErrors.get(endpoint).reset();
+            serverErrors.get(endpoint).reset();
+        }
+    }
+
+    private void call(Endpoint endpoint) {
+        int status;
+        long start = System.nanoTime();
+
+        try {
+            status = mockMvc.perform(request(endpoint, ThreadLocalRandom.current()).header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                    .andReturn().getResponse().getStatus();
+        } catch (Exception e) {
+            status = 500;
+        }
+
+        latencies.get(endpoint).recordValue(System.nanoTime() - start);
+
+        if (status >= 500) {
+            serverErrors.get(endpoint).increment();
+        } else if (status >= 400) {
+            // mostly gets, updates and deletes of ids another thread already deleted
+            clientErrors.get(endpoint).increment();
+        }
+
+        if (endpoint == Endpoint.CREATE && status == 200) {
+            maxId.incrementAndGet();
+        }
+    }
+
+    private MockHttpServletRequestBuilder request(Endpoint endpoint, ThreadLocalRandom random) throws Exception {
+        switch (endpoint) {
+            case LIST:
+                return filters(get("/rest/players"), random)
+                        .param("order", ORDERS[random.nextInt(ORDERS.length)].name())
+                        .param("pageNumber", String.valueOf(random.nextInt(10)))
+                        .param("pageSize", "20");
+            case COUNT:
+                return filters(get("/rest/players/count"), random);
+            case GET:
+                return get("/rest/players/" + randomId(random));
+            case CREATE:
+                return post("/rest/players")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(BenchmarkData.player(random)));
+            case UPDATE:
+                return post("/rest/players/" + randomId(random))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"experience\":" + BenchmarkData.experience(random) + "}");
+            default:
+                return delete("/rest/players/" + randomId(random));
+        }
+    }
+
+    private static MockHttpServletRequestBuilder filters(MockHttpServletRequestBuilder request, ThreadLocalRandom random) {
+        if (random.nextInt(2) == 0) {
+            request.param("race", BenchmarkData.race(random).name());
+        }
+
+        if (random.nextInt(5) == 0) {
+            request.param("banned", String.valueOf(random.nextBoolean()));
+        }
+
+        if (random.nextInt(3) == 0) {
+            request.param("minExperience", String.valueOf(BenchmarkData.experience(random)));
+        }
+
+        if (random.nextInt(7) == 0) {
+            request.param("name", BenchmarkData.syllable(random) + BenchmarkData.syllable(random));
+        }
+
+        return request;
+    }
+
+    private long randomId(ThreadLocalRandom random) {
+        return 1 + random.nextLong(maxId.get());
+    }
+
+    private static Endpoint pick(ThreadLocalRandom random) {
+        int total = 0;
+        for (Endpoint endpoint : Endpoint.values()) {
+            total += endpoint.weight;
+        }
+
+        int pick = random.nextInt(total);
+        for (Endpoint endpoint : Endpoint.values()) {
+            pick -= endpoint.weight;
+
+            if (pick < 0) {
+                return endpoint;
+            }
+        }
+
+        return Endpoint.LIST;
+    }
+
+    private void report(long rows, int threads, double seconds, File output) throws Exception {
+        List<Map<String, Object>> results = new ArrayList<>();
+
+        System.out.printf("%n%-8s %10s %10s %10s %10s %10s %10s %8s %8s%n",
+                "endpoint", "requests", "ops/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "4xx", "5xx");
+
+        for (Endpoint endpoint : Endpoint.values()) {
+            Histogram histogram = latencies.get(endpoint).getIntervalHistogram();
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("endpoint", endpoint.name());
+            result.put("requests", histogram.getTotalCount());
+            result.put("throughput", histogram.getTotalCount() / seconds);
+            result.put("p50", millis(histogram.getValueAtPercentile(50)));
+            result.put("p99", millis(histogram.getValueAtPercentile(99)));
+            result.put("p999", millis(histogram.getValueAtPercentile(99.9)));
+            result.put("max", millis(histogram.getMaxValue()));
+            result.put("clientErrors", clientErrors.get(endpoint).sum());
+            result.put("serverErrors", serverErrors.get(endpoint).sum());
+            results.add(result);
+
+            System.out.printf("%-8s %10d %10.1f %10.3f %10.3f %10.3f %10.3f %8d %8d%n",
+                    endpoint, histogram.getTotalCount(), histogram.getTotalCount() / seconds,
+                    result.get("p50"), result.get("p99"), result.get("p999"), result.get("max"),
+                    clientErrors.get(endpoint).sum(), serverErrors.get(endpoint).sum());
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("rows", rows);
+        report.put("threads", threads);
+        report.put("durationSeconds", seconds);
+        report.put("unit", "ms");
+        report.put("endpoints", results);
+
+        output.getAbsoluteFile().getParentFile().mkdirs();
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output, report);
+        System.out.println("Load test result is saved to " + output.getAbsolutePath());
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,119 @@
+package com.game.benchmark;
+
+import com.game.config.AppConfig;
+import com.game.entity.Player;
+import com.game.entity.Race;
+import com.game.service.PlayerCriteria;
+import com.game.service.PlayerService;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service and repository queries end to end against the embedded H2 database of the dev profile,
+ * seeded with {@code rows} generated players on top of test.sql.
+ * With {@code queryCache=false} the query cache is cleared before every call, so each one reaches the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+
+    private static final int SEED_BATCH = 5000;
+
+    @Param({"10000"})
+    public int rows;
+
+    @Param({"false", "true"})
+    public boolean queryCache;
+
+    private AnnotationConfigApplicationContext context;
+    private PlayerService playerService;
+    private SessionFactory sessionFactory;
+    private long maxId;
+
+    @Setup
+    public void setup() {
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().setActiveProfiles("dev");
+        context.register(AppConfig.class);
+        context.refresh();
+
+        playerService = context.getBean(PlayerService.class);
+        sessionFactory = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class);
+
+        List<Player> players = BenchmarkData.players(rows, 42);
+        for (int from = 0; from < players.size(); from += SEED_BATCH) {
+            playerService.createPlayers(players.subList(from, Math.min(from + SEED_BATCH, players.size())));
+        }
+
+        maxId = playerService.getCount(new PlayerCriteria());
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    private void clearQueryCache() {
+        if (!queryCache) {
+            sessionFactory.getCache().evictDefaultQueryRegion();
+        }
+    }
+
+    @Benchmark
+    public Page<Player> pageByExperienceRange() {
+        clearQueryCache();
+        PlayerCriteria criteria = new PlayerCriteria();
+        criteria.setMinExperience(100000);
+        criteria.setMaxExperience(2000000);
+
+        return playerService.getAllPlayers(criteria, PageRequest.of(3, 20, Sort.by("experience", "id")));
+    }
+
+    @Benchmark
+    public long countByRaceAndBanned() {
+        clearQueryCache();
+        PlayerCriteria criteria = new PlayerCriteria();
+        criteria.setRace(Race.ELF);
+        criteria.setBanned(false);
+
+        return playerService.getCount(criteria);
+    }
+
+    @Benchmark
+    public Page<Player> pageByNameSubstring() {
+        clearQueryCache();
+        PlayerCriteria criteria = new PlayerCriteria();
+        criteria.setName("рам");
+
+        return playerService.getAllPlayers(criteria, PageRequest.of(0, 20, Sort.by("id")));
+    }
+
+    @Benchmark
+    public Player getById() {
+        return playerService.getPlayer(String.valueOf(ThreadLocalRandom.current().nextLong(1, maxId + 1)));
+    }
+}
@@ -0,0 +1,85 @@
+package com.game.service;
+
+import com.game.benchmark.BenchmarkData;
+import com.game.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU-only paths of {@link PlayerValidator}, {@link LevelTable} and {@link PlayerCriteria}, one operation per player of a fixed sample.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayerServiceBenchmark {
+
+    private static final int SAMPLE = 1024;
+
+    private LevelTable levelTable;
+    private PlayerValidator validator;
+    private List<Player> players;
+    private PlayerCriteria criteria;
+
+    private int next;
+
+    @Setup
+    public void setup() {
+        levelTable = new LevelTable(50);
+        validator = new PlayerValidator();
+        players = BenchmarkData.players(SAMPLE, 42);
+
+        criteria = new PlayerCriteria();
+        criteria.setName("ар");
+        criteria.setMinExperience(1000);
+        criteria.setMaxExperience(500000);
+        criteria.setBanned(false);
+    }
+
+    private Player nextPlayer() {
+        next = (next + 1) & (SAMPLE - 1);
+        return players.get(next);
+    }
+
+    // the formula the level table replaced, kept as a baseline
+    @Benchmark
+    public int levelWithSqrt() {
+        Player player = nextPlayer();
+        int level = (int) ((Math.sqrt(2500 + 200 * player.getExperience())) - 50) / 100;
+        return 50 * (level + 1) * (level + 2) - player.getExperience();
+    }
+
+    @Benchmark
+    public int levelWithTable() {
+        Player player = nextPlayer();
+        int level = levelTable.level(player.getExperience());
+        return levelTable.untilNextLevel(player.getExperience(), level);
+    }
+
+    @Benchmark
+    public void validateFields(Blackhole blackhole) {
+        Player player = nextPlayer();
+        validator.validate(player);
+        blackhole.consume(player);
+    }
+
+    @Benchmark
+    public Specification<Player> criteriaToSpecification() {
+        return criteria.toSpecification();
+    }
+}
@@ -1,20 +1,54 @@
 package com.game.config;
 
+import com.game.metrics.QueryCountingDataSource;
+import com.game.metrics.RequestTimingInterceptor;
+import com.game.metrics.ServiceTimingInterceptor;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import io.micrometer.core.instrument.binder.jpa.HibernateMetrics;
+import io.micrometer.core.instrument.binder.jpa.HibernateQueryMetrics;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.hibernate.SessionFactory;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.JpaVendorAdapter;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.stereotype.Controller;
+import org.springframework.stereotype.Service;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
+import javax.cache.CacheManager;
+import javax.cache.Caching;
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
 import java.util.Properties;
@@ -23,14 +57,25 @@ import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.
 
 @Configuration
 @EnableTransactionManagement
-@ComponentScan("com.game")
+@EnableScheduling
+@ComponentScan(value = "com.game", excludeFilters = {
+        @ComponentScan.Filter(Controller.class),
+        @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = WebConfig.class)})
 @EnableJpaRepositories(basePackages = "com.game.repository")
+@PropertySource({"classpath:datasource.properties", "classpath:application.properties"})
 public class AppConfig {
 
+    private Environment env;
+
+    @Autowired
+    public AppConfig(Environment env) {
+        this.env = env;
+    }
+
     @Bean
-    public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
-        em.setDataSource(dataSource());
+        em.setDataSource(dataSource);
         em.setPackagesToScan("com.game.entity");
 
         JpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
@@ -41,27 +86,122 @@ public class AppConfig {
     }
 
     @Profile("prod")
-    @Bean
-    public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName("com.mysql.cj.jdbc.Driver");
-        dataSource.setUrl("jdbc:mysql://localhost:3306/rpg?serverTimezone=UTC&characterEncoding=UTF-8");
-        dataSource.setUsername("root");
-        dataSource.setPassword("root");
-        return dataSource;
+    @Bean(destroyMethod = "close")
+    public DataSource dataSource(MeterRegistry meterRegistry) {
+        HikariConfig config = new HikariConfig();
+        config.setDriverClassName(env.getRequiredProperty("db.driver"));
+        config.setJdbcUrl(env.getRequiredProperty("db.url"));
+        config.setUsername(env.getRequiredProperty("db.username"));
+        config.setPassword(env.getRequiredProperty("db.password"));
+
+        config.setPoolName(env.getProperty("db.pool.name", "rpg-pool"));
+        config.setMinimumIdle(env.getProperty("db.pool.minIdle", Integer.class, 2));
+        config.setMaximumPoolSize(env.getProperty("db.pool.maxSize", Integer.class, 10));
+        config.setConnectionTimeout(env.getProperty("db.pool.acquireTimeoutMs", Long.class, 3000L));
+        config.setIdleTimeout(env.getProperty("db.pool.idleTimeoutMs", Long.class, 600000L));
+        config.setMaxLifetime(env.getProperty("db.pool.maxLifetimeMs", Long.class, 1800000L));
+        config.setValidationTimeout(env.getProperty("db.pool.validationTimeoutMs", Long.class, 1000L));
+        config.setLeakDetectionThreshold(env.getProperty("db.pool.leakDetectionThresholdMs", Long.class, 0L));
+
+        String validationQuery = env.getProperty("db.pool.validationQuery");
+        if (validationQuery != null && !validationQuery.isEmpty()) {
+            config.setConnectionTestQuery(validationQuery);
+        }
+
+        // active / idle / pending gauges and the acquire timer go to the registry, the pool MXBean to JMX
+        config.setMetricRegistry(meterRegistry);
+        config.setRegisterMbeans(true);
+
+        HikariDataSource dataSource = new HikariDataSource(config);
+        migrate(dataSource);
+        return new QueryCountingDataSource(dataSource, meterRegistry);
     }
 
     @Profile("dev")
     @Bean(name = "dataSource")
-    public DataSource dataSourceForTests() {
+    public DataSource dataSourceForTests(MeterRegistry meterRegistry) {
 
-        return new EmbeddedDatabaseBuilder()
+        DataSource dataSource = new EmbeddedDatabaseBuilder()
                 .generateUniqueName(true)
                 .setType(H2)
-                .setScriptEncoding("UTF-8")
-                .ignoreFailedDrops(true)
-                .addScript("test.sql")
                 .build();
+        migrate(dataSource);
+
+        new ResourceDatabasePopulator(false, false, "UTF-8", new ClassPathResource("test.sql")).execute(dataSource);
+        return new QueryCountingDataSource(dataSource, meterRegistry);
+    }
+
+    /**
+     * Applies the versioned scripts from db/migration before anything else touches the database.
+     * Databases created with init.sql have no history table yet and are taken as version 1.
+     */
+    static void migrate(DataSource dataSource) {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+    }
+
+    @Bean
+    public PrometheusMeterRegistry meterRegistry() {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        registry.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (id.getType() == Meter.Type.TIMER && id.getName().startsWith("hikaricp.connections")) {
+                    return DistributionStatisticConfig.builder()
+                            .percentiles(0.5, 0.95, 0.99)
+                            .percentilesHistogram(true)
+                            .build()
+                            .merge(config);
+                }
+
+                // client-side quantiles only, a bucket histogram per endpoint and status would multiply the series
+                if (id.getName().equals(RequestTimingInterceptor.METRIC) || id.getName().equals(ServiceTimingInterceptor.METRIC)
+                        || id.getName().equals(QueryCountingDataSource.METRIC)) {
+                    return DistributionStatisticConfig.builder()
+                            .percentiles(0.5, 0.95, 0.99)
+                            .build()
+                            .merge(config);
+                }
+                return config;
+            }
+        });
+
+        return registry;
+    }
+
+    /**
+     * Times the calls into {@code @Service} beans. The advisor is picked up by the proxy creator of
+     * {@code @EnableTransactionManagement} and runs outside the transaction, so commit time is included.
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public Advisor serviceTimingAdvisor(MeterRegistry meterRegistry) {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                new AnnotationMatchingPointcut(Service.class, true), new ServiceTimingInterceptor(meterRegistry));
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+
+        return advisor;
+    }
+
+    @Bean
+    public HibernateMetrics hibernateMetrics(EntityManagerFactory emf, MeterRegistry meterRegistry) {
+        HibernateMetrics metrics = new HibernateMetrics(emf.unwrap(SessionFactory.class), "rpg", Tags.empty());
+        metrics.bindTo(meterRegistry);
+        // execution count and time of every distinct HQL query, from the same statistics
+        new HibernateQueryMetrics(emf.unwrap(SessionFactory.class), "rpg", Tags.empty()).bindTo(meterRegistry);
+
+        // evictions are only known to the cache provider
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager();
+        for (String name : cacheManager.getCacheNames()) {
+            JCacheMetrics.monitor(meterRegistry, cacheManager.getCache(name));
+        }
+
+        return metrics;
     }
 
     @Bean
@@ -81,6 +221,18 @@ public class AppConfig {
         Properties properties = new Properties();
         properties.setProperty("hibernate.dialect", "org.hibernate.dialect.MySQL5Dialect");
 
+        // second-level and query cache, regions are bounded by caffeine settings in application.conf
+        properties.setProperty("hibernate.cache.use_second_level_cache", "true");
+        properties.setProperty("hibernate.cache.use_query_cache", "true");
+        properties.setProperty("hibernate.cache.region.factory_class", "jcache");
+        properties.setProperty("hibernate.javax.cache.provider", CaffeineCachingProvider.class.getName());
+        properties.setProperty("hibernate.javax.cache.missing_cache_strategy", "create");
+        properties.setProperty("hibernate.generate_statistics", "true");
+
+        // groups the PlayerNgram inserts of a reindex, IDENTITY player inserts can't be batched by Hibernate
+        properties.setProperty("hibernate.jdbc.batch_size", env.getProperty("bulk.batchSize", "500"));
+        properties.setProperty("hibernate.order_inserts", "true");
+
         return properties;
     }
 }
\ No newline at end of file
@@ -1,7 +1,9 @@
 package com.game.config;
 
+import com.game.controller.GzipResponseFilter;
 import org.springframework.web.servlet.support.AbstractAnnotationConfigDispatcherServletInitializer;
 
+import javax.servlet.Filter;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 
@@ -28,4 +30,14 @@ public class MyWebAppInit extends AbstractAnnotationConfigDispatcherServletIniti
         return new String[]{"/"};
     }
 
+    @Override
+    protected Filter[] getServletFilters() {
+        return servletFilters();
+    }
+
+    // public for the load test, which runs the stack without a servlet container
+    public static Filter[] servletFilters() {
+        return new Filter[]{new GzipResponseFilter()};
+    }
+
 }
\ No newline at end of file
@@ -2,13 +2,26 @@ package com.game.config;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.game.controller.PlayerJsonSerializer;
+import com.game.entity.Player;
+import com.game.metrics.QueryBudgetInterceptor;
+import com.game.metrics.RequestTimingInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.web.servlet.ViewResolver;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -19,9 +32,21 @@ import java.util.List;
 
 @Configuration
 @EnableWebMvc
-@ComponentScan("com.game")
+@ComponentScan("com.game.controller")
 public class WebConfig implements WebMvcConfigurer {
 
+    private MeterRegistry meterRegistry;
+    private int maxQueries;
+    private int maxRepeats;
+
+    @Autowired
+    public WebConfig(MeterRegistry meterRegistry,
+                     @Value("${sql.budget.maxQueries:10}") int maxQueries,
+                     @Value("${sql.budget.maxRepeats:1}") int maxRepeats) {
+        this.meterRegistry = meterRegistry;
+        this.maxQueries = maxQueries;
+        this.maxRepeats = maxRepeats;
+    }
 
     @Bean
     public ViewResolver internalResourceViewResolver() {
@@ -37,16 +62,41 @@ public class WebConfig implements WebMvcConfigurer {
         registry.addViewController("/").setViewName("index");
     }
 
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RequestTimingInterceptor(meterRegistry));
+        registry.addInterceptor(new QueryBudgetInterceptor(meterRegistry, maxQueries, maxRepeats));
+    }
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         registry.addResourceHandler("/resources/**").addResourceLocations("/resources/");
     }
 
+    @Bean
+    public ObjectMapper objectMapper() {
+        return configure(Jackson2ObjectMapperBuilder.json().build());
+    }
+
+    // binary representation for machine clients, enums go out as ordinals and birthdays as epoch millis
+    public ObjectMapper cborObjectMapper() {
+        return configure(Jackson2ObjectMapperBuilder.cbor()
+                .featuresToEnable(SerializationFeature.WRITE_ENUMS_USING_INDEX, SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build());
+    }
+
     @Override
     public void configureMessageConverters(List<HttpMessageConverter<?>> converters) {
-        MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter();
-        converter.getObjectMapper().setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
-        converter.getObjectMapper().setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
-        converters.add(converter);
+        // JSON stays first, so it is picked whenever the client accepts both
+        converters.add(new MappingJackson2HttpMessageConverter(objectMapper()));
+        converters.add(new MappingJackson2CborHttpMessageConverter(cborObjectMapper()));
+    }
+
+    private static ObjectMapper configure(ObjectMapper objectMapper) {
+        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        objectMapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        // players are written without reflection, reading them still goes through the field mapping
+        objectMapper.registerModule(new SimpleModule().addSerializer(Player.class, new PlayerJsonSerializer()));
+        return objectMapper;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,285 @@
+package com.game.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzips text responses of clients that send {@code Accept-Encoding: gzip}, once the body reaches
+ * {@code minSize} bytes. Smaller bodies go out as they are, since the gzip header and the extra CPU
+ * would cost more than they save. The body is buffered only up to {@code minSize}, so streaming
+ * responses like the export keep streaming.
+ * <p>
+ * A gzipped body is a different representation from the plain one, so its strong ETag is turned into a weak one.
+ * Spring compares {@code If-None-Match} weakly, so revalidation keeps working, and the 304 gets the same weak tag.
+ */
+public class GzipResponseFilter extends OncePerRequestFilter {
+
+    public static final int DEFAULT_MIN_SIZE = 1024;
+
+    private final int minSize;
+
+    public GzipResponseFilter() {
+        this(DEFAULT_MIN_SIZE);
+    }
+
+    public GzipResponseFilter(int minSize) {
+        this.minSize = minSize;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+
+        if (acceptEncoding == null || !acceptEncoding.toLowerCase().contains("gzip")) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        GzipResponse gzipResponse = new GzipResponse(request, response);
+        try {
+            chain.doFilter(request, gzipResponse);
+        } finally {
+            gzipResponse.finish();
+        }
+    }
+
+    private static boolean compressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+        return "text".equals(mediaType.getType())
+                || mediaType.getSubtype().equals("json")
+                || mediaType.getSubtype().endsWith("+json")
+                || mediaType.getSubtype().equals("x-ndjson");
+    }
+
+    private class GzipResponse extends HttpServletResponseWrapper {
+
+        private final HttpServletRequest request;
+        private final BufferingStream stream = new BufferingStream();
+        private PrintWriter writer;
+        private Long contentLength;
+
+        GzipResponse(HttpServletRequest request, HttpServletResponse response) {
+            super(response);
+            this.request = request;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(stream, Charset.forName(getCharacterEncoding())));
+            }
+            return writer;
+        }
+
+        // the length of the uncompressed body, only passed on if the body goes out uncompressed
+        @Override
+        public void setContentLength(int length) {
+            contentLength = (long) length;
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+            contentLength = length;
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                contentLength = Long.parseLong(value);
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                contentLength = Long.parseLong(value);
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            stream.flush();
+        }
+
+        @Override
+        public void resetBuffer() {
+            stream.reset();
+            super.resetBuffer();
+        }
+
+        @Override
+        public void reset() {
+            stream.reset();
+            contentLength = null;
+            super.reset();
+        }
+
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            stream.finish();
+        }
+
+        private void weakenETag() {
+            String eTag = getHeader(HttpHeaders.ETAG);
+
+            if (eTag != null && eTag.startsWith("\"")) {
+                setHeader(HttpHeaders.ETAG, "W/" + eTag);
+            }
+        }
+
+        // a 304 for the tag of the gzipped representation
+        private boolean revalidatedGzip() {
+            String eTag = getHeader(HttpHeaders.ETAG);
+            String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+
+            return getStatus() == HttpServletResponse.SC_NOT_MODIFIED && eTag != null && eTag.startsWith("\"")
+                    && ifNoneMatch != null && ifNoneMatch.contains("W/" + eTag);
+        }
+
+        private class BufferingStream extends ServletOutputStream {
+
+            private ByteArrayOutputStream buffer = new ByteArrayOutputStream(minSize);
+            private OutputStream target;
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                if (target == null) {
+                    buffer.write(bytes, offset, length);
+
+                    if (buffer.size() < minSize) {
+                        return;
+                    }
+
+                    start(true);
+                    return;
+                }
+
+                target.write(bytes, offset, length);
+            }
+
+            // a flush below minSize waits for more output, the decision is only made once
+            @Override
+            public void flush() throws IOException {
+                if (target != null) {
+                    target.flush();
+                }
+            }
+
+            void reset() {
+                if (target == null) {
+                    buffer.reset();
+                }
+            }
+
+            void finish() throws IOException {
+                // nothing written, e.g. a 304 or an error page rendered by the container: leave the response alone
+                if (target == null && buffer.size() == 0) {
+                    if (revalidatedGzip()) {
+                        weakenETag();
+                    }
+                    if (contentLength != null) {
+                        ((HttpServletResponse) getResponse()).setContentLengthLong(contentLength);
+                    }
+                    return;
+                }
+
+                if (target == null) {
+                    start(false);
+                }
+
+                if (target instanceof GZIPOutputStream) {
+                    ((GZIPOutputStream) target).finish();
+                }
+
+                target.flush();
+            }
+
+            private void start(boolean large) throws IOException {
+                HttpServletResponse response = (HttpServletResponse) getResponse();
+                boolean compressible = compressible(response.getContentType());
+
+                if (compressible) {
+                    response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                }
+
+                if (large && compressible && !response.containsHeader(HttpHeaders.CONTENT_ENCODING)) {
+                    response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                    weakenETag();
+                    // syncFlush, so that flushing a streaming response sends what has been compressed so far
+                    target = new GZIPOutputStream(response.getOutputStream(), 8192, true);
+                } else {
+                    if (contentLength != null) {
+                        response.setContentLengthLong(contentLength);
+                    }
+                    target = response.getOutputStream();
+                }
+
+                buffer.writeTo(target);
+                buffer = null;
+            }
+
+            // writes below minSize only fill the buffer, past it readiness is the container stream's
+            @Override
+            public boolean isReady() {
+                if (target == null) {
+                    return true;
+                }
+
+                try {
+                    return getResponse().getOutputStream().isReady();
+                } catch (IOException e) {
+                    return false;
+                }
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                try {
+                    getResponse().getOutputStream().setWriteListener(writeListener);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+    }
+}
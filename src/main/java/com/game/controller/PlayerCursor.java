@@ -0,0 +1,92 @@
+package com.game.controller;
+
+import com.game.entity.Player;
+import com.game.exceptions.BadRequestException;
+import com.game.service.PlayerFilters;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Opaque keyset pagination token: the sort key and id of the last row of the previous page.
+ */
+public class PlayerCursor {
+
+    private static final String SEPARATOR = ":";
+
+    private final PlayerOrder order;
+    private final Long id;
+    private final String key;
+
+    private PlayerCursor(PlayerOrder order, Long id, String key) {
+        this.order = order;
+        this.id = id;
+        this.key = key;
+    }
+
+    public static PlayerCursor of(PlayerOrder order, Player last) {
+        Object key;
+
+        switch (order) {
+            case NAME:
+                key = last.getName();
+                break;
+            case EXPERIENCE:
+                key = last.getExperience();
+                break;
+            case BIRTHDAY:
+                key = last.getBirthday();
+                break;
+            case LEVEL:
+                key = last.getLevel();
+                break;
+            default:
+                key = last.getId();
+        }
+
+        return of(order, last.getId(), key);
+    }
+
+    /**
+     * Cursor after the row with this id and value of the order's field, for results that aren't entities.
+     */
+    public static PlayerCursor of(PlayerOrder order, Long id, Object key) {
+        return new PlayerCursor(order, id, key instanceof Date ? String.valueOf(((Date) key).getTime()) : String.valueOf(key));
+    }
+
+    public static PlayerCursor decode(String token, PlayerOrder order) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = decoded.split(SEPARATOR, 3);
+
+            if (parts.length != 3 || PlayerOrder.valueOf(parts[0]) != order) {
+                throw new BadRequestException("Cursor doesn't match the requested order.");
+            }
+
+            return new PlayerCursor(order, Long.parseLong(parts[1]), parts[2]);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Cursor is incorrect.", e);
+        }
+    }
+
+    public String encode() {
+        String raw = order.name() + SEPARATOR + id + SEPARATOR + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Specification<Player> toSpecification() {
+        switch (order) {
+            case NAME:
+                return PlayerFilters.seekFilter(order.getFieldName(), key, id);
+            case EXPERIENCE:
+            case LEVEL:
+                return PlayerFilters.seekFilter(order.getFieldName(), Integer.valueOf(key), id);
+            case BIRTHDAY:
+                return PlayerFilters.seekFilter(order.getFieldName(), new Date(Long.parseLong(key)), id);
+            default:
+                return PlayerFilters.seekFilter(id);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.game.controller;
+
+public enum PlayerDataFormat {
+    NDJSON("application/x-ndjson", "ndjson"), // default
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    PlayerDataFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
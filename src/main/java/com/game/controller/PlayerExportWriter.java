@@ -0,0 +1,97 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.game.entity.Player;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes players one at a time, one NDJSON object or CSV record per line.
+ * CSV has a header row, quotes fields per RFC 4180 and, like the JSON API, gives birthday in epoch milliseconds.
+ */
+public class PlayerExportWriter {
+
+    static final String CSV_HEADER = "id,name,title,race,profession,birthday,banned,experience,level,untilNextLevel";
+
+    private final PlayerDataFormat format;
+    private final ObjectWriter objectWriter;
+    private final Writer writer;
+
+    public PlayerExportWriter(PlayerDataFormat format, ObjectWriter objectWriter, OutputStream outputStream) {
+        this.format = format;
+        this.objectWriter = objectWriter;
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    }
+
+    public void writeHeader() throws IOException {
+        if (format == PlayerDataFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * Unchecked so that it can be used as a consumer, an {@link IOException} comes back as {@link UncheckedIOException}.
+     */
+    public void write(Player player) {
+        try {
+            if (format == PlayerDataFormat.NDJSON) {
+                writer.write(objectWriter.writeValueAsString(player));
+            } else {
+                writeCsv(player);
+            }
+
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    private void writeCsv(Player player) throws IOException {
+        writer.write(String.valueOf(player.getId()));
+        writer.write(',');
+        writer.write(quote(player.getName()));
+        writer.write(',');
+        writer.write(quote(player.getTitle()));
+        writer.write(',');
+        writer.write(value(player.getRace()));
+        writer.write(',');
+        writer.write(value(player.getProfession()));
+        writer.write(',');
+        writer.write(player.getBirthday() == null ? "" : String.valueOf(player.getBirthday().getTime()));
+        writer.write(',');
+        writer.write(value(player.getBanned()));
+        writer.write(',');
+        writer.write(value(player.getExperience()));
+        writer.write(',');
+        writer.write(value(player.getLevel()));
+        writer.write(',');
+        writer.write(value(player.getUntilNextLevel()));
+    }
+
+    private static String value(Object value) {
+        return value == null ? "" : value.toString();
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "";
+        }
+
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
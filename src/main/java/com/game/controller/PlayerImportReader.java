@@ -0,0 +1,273 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.exceptions.BadRequestException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads players one record at a time from NDJSON or from CSV in the layout written by {@link PlayerExportWriter}.
+ * <p>
+ * CSV columns are matched by the header row, unknown ones are skipped. Ids, levels and untilNextLevel
+ * in the input are ignored. A record that can't be read makes {@link #next()} throw {@link BadRequestException},
+ * the following records are still read. Records longer than maxRecordLength characters are rejected the same way
+ * without being buffered; an unterminated CSV quote ends at the first line break past that length.
+ */
+public class PlayerImportReader implements Iterator<Player> {
+
+    private final PlayerDataFormat format;
+    private final ObjectReader objectReader;
+    private final BufferedReader reader;
+    private final int maxRecordLength;
+
+    private Map<String, Integer> columns;
+    private String nextLine;
+    private List<String> nextRecord;
+    private long lineNumber;
+    private long recordLine;
+    private boolean tooLong;
+
+    public PlayerImportReader(PlayerDataFormat format, ObjectReader objectReader, InputStream inputStream, int maxRecordLength) {
+        this.format = format;
+        this.objectReader = objectReader;
+        this.reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        this.maxRecordLength = maxRecordLength;
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            if (format == PlayerDataFormat.NDJSON) {
+                while (nextLine == null) {
+                    String line = readLine();
+
+                    if (line == null) {
+                        return false;
+                    }
+
+                    lineNumber++;
+
+                    if (tooLong || !line.trim().isEmpty()) {
+                        nextLine = line;
+                    }
+                }
+
+                return true;
+            }
+
+            if (columns == null) {
+                List<String> header = readRecord();
+                columns = new HashMap<>();
+
+                if (tooLong) {
+                    throw new BadRequestException("Line 1: the header is longer than " + maxRecordLength + " characters");
+                }
+
+                for (int i = 0; header != null && i < header.size(); i++) {
+                    columns.put(header.get(i).trim(), i);
+                }
+            }
+
+            if (nextRecord == null) {
+                nextRecord = readRecord();
+            }
+
+            return nextRecord != null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Player next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        if (tooLong) {
+            tooLong = false;
+            nextLine = null;
+            nextRecord = null;
+            throw new BadRequestException("Line " + (format == PlayerDataFormat.NDJSON ? lineNumber : recordLine)
+                    + ": the record is longer than " + maxRecordLength + " characters");
+        }
+
+        Player player = format == PlayerDataFormat.NDJSON ? parseJson() : parseCsv();
+        player.setId(null);
+        player.setLevel(null);
+        player.setUntilNextLevel(null);
+
+        return player;
+    }
+
+    private Player parseJson() {
+        String line = nextLine;
+        nextLine = null;
+
+        try {
+            Player player = objectReader.readValue(line);
+
+            if (player == null) {
+                throw new BadRequestException("Line " + lineNumber + ": expected a player object");
+            }
+
+            return player;
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("Line " + lineNumber + ": " + e.getOriginalMessage());
+        }
+    }
+
+    private Player parseCsv() {
+        List<String> record = nextRecord;
+        nextRecord = null;
+
+        try {
+            Player player = new Player();
+            player.setName(field(record, "name"));
+            player.setTitle(field(record, "title"));
+
+            String race = field(record, "race");
+            player.setRace(race == null ? null : Race.valueOf(race));
+
+            String profession = field(record, "profession");
+            player.setProfession(profession == null ? null : Profession.valueOf(profession));
+
+            String birthday = field(record, "birthday");
+            player.setBirthday(birthday == null ? null : new Date(Long.parseLong(birthday)));
+
+            String banned = field(record, "banned");
+            player.setBanned(banned == null ? null : Boolean.valueOf(banned));
+
+            String experience = field(record, "experience");
+            player.setExperience(experience == null ? null : Integer.valueOf(experience));
+
+            return player;
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Line " + recordLine + ": " + e.getMessage());
+        }
+    }
+
+    // empty fields are missing values, like in the export
+    private String field(List<String> record, String column) {
+        Integer index = columns.get(column);
+
+        if (index == null || index >= record.size() || record.get(index).isEmpty()) {
+            return null;
+        }
+
+        return record.get(index);
+    }
+
+    // like BufferedReader.readLine, but characters past maxRecordLength are dropped and set tooLong
+    private String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c = reader.read();
+
+        if (c < 0) {
+            return null;
+        }
+
+        for (; c >= 0 && c != '\n'; c = reader.read()) {
+            if (line.length() < maxRecordLength) {
+                line.append((char) c);
+            } else if (c != '\r') {
+                tooLong = true;
+            }
+        }
+
+        if (line.length() > 0 && line.charAt(line.length() - 1) == '\r') {
+            line.setLength(line.length() - 1);
+        }
+
+        return line.toString();
+    }
+
+    // one RFC 4180 record, quoted fields may span lines
+    private List<String> readRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean empty = true;
+        int length = 0;
+        int c;
+
+        while ((c = reader.read()) >= 0) {
+            if (empty) {
+                recordLine = lineNumber + 1;
+                empty = false;
+            }
+
+            if (++length > maxRecordLength) {
+                tooLong = true;
+                fields.clear();
+                field.setLength(0);
+
+                while (c >= 0 && c != '\n') {
+                    c = reader.read();
+                }
+
+                lineNumber++;
+                break;
+            }
+
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        lineNumber++;
+                    }
+
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                lineNumber++;
+
+                if (fields.isEmpty() && field.length() == 0) {
+                    // blank line
+                    empty = true;
+                    continue;
+                }
+
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+
+        if (empty) {
+            return null;
+        }
+
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,124 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+
+import java.io.IOException;
+
+/**
+ * Writes a player straight to the generator, in the same shape the field-visibility mapping produced:
+ * declaration order, nulls included, enums by name, the birthday as the mapper's date format and no version.
+ * Lists of players go through Jackson's collection serializer, which calls this once per element.
+ * <p>
+ * Field names and enum values are encoded once up front, so per player only the values are escaped.
+ * With {@link SerializationFeature#WRITE_ENUMS_USING_INDEX}, as on the CBOR mapper, enums are written as ordinals.
+ */
+public class PlayerJsonSerializer extends StdSerializer<Player> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString NAME = new SerializedString("name");
+    private static final SerializableString TITLE = new SerializedString("title");
+    private static final SerializableString RACE = new SerializedString("race");
+    private static final SerializableString PROFESSION = new SerializedString("profession");
+    private static final SerializableString BIRTHDAY = new SerializedString("birthday");
+    private static final SerializableString BANNED = new SerializedString("banned");
+    private static final SerializableString EXPERIENCE = new SerializedString("experience");
+    private static final SerializableString LEVEL = new SerializedString("level");
+    private static final SerializableString UNTIL_NEXT_LEVEL = new SerializedString("untilNextLevel");
+
+    private static final SerializableString[] RACES = names(Race.values());
+    private static final SerializableString[] PROFESSIONS = names(Profession.values());
+
+    public PlayerJsonSerializer() {
+        super(Player.class);
+    }
+
+    @Override
+    public void serialize(Player player, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject(player);
+
+        generator.writeFieldName(ID);
+        if (player.getId() == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(player.getId());
+        }
+
+        generator.writeFieldName(NAME);
+        generator.writeString(player.getName());
+
+        generator.writeFieldName(TITLE);
+        generator.writeString(player.getTitle());
+
+        generator.writeFieldName(RACE);
+        if (player.getRace() == null) {
+            generator.writeNull();
+        } else {
+            writeEnum(generator, provider, RACES, player.getRace());
+        }
+
+        generator.writeFieldName(PROFESSION);
+        if (player.getProfession() == null) {
+            generator.writeNull();
+        } else {
+            writeEnum(generator, provider, PROFESSIONS, player.getProfession());
+        }
+
+        generator.writeFieldName(BIRTHDAY);
+        if (player.getBirthday() == null) {
+            generator.writeNull();
+        } else {
+            provider.defaultSerializeDateValue(player.getBirthday(), generator);
+        }
+
+        generator.writeFieldName(BANNED);
+        if (player.getBanned() == null) {
+            generator.writeNull();
+        } else {
+            generator.writeBoolean(player.getBanned());
+        }
+
+        writeInteger(generator, EXPERIENCE, player.getExperience());
+        writeInteger(generator, LEVEL, player.getLevel());
+        writeInteger(generator, UNTIL_NEXT_LEVEL, player.getUntilNextLevel());
+
+        generator.writeEndObject();
+    }
+
+    private static void writeEnum(JsonGenerator generator, SerializerProvider provider,
+                                  SerializableString[] names, Enum<?> value) throws IOException {
+        if (provider.isEnabled(SerializationFeature.WRITE_ENUMS_USING_INDEX)) {
+            generator.writeNumber(value.ordinal());
+        } else {
+            generator.writeString(names[value.ordinal()]);
+        }
+    }
+
+    private static void writeInteger(JsonGenerator generator, SerializableString name, Integer value) throws IOException {
+        generator.writeFieldName(name);
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+
+    private static SerializableString[] names(Enum<?>[] values) {
+        SerializableString[] names = new SerializableString[values.length];
+
+        for (Enum<?> value : values) {
+            names[value.ordinal()] = new SerializedString(value.name());
+        }
+
+        return names;
+    }
+}
@@ -1,5 +1,7 @@
 package com.game.controller;
 
+import org.springframework.data.domain.Sort;
+
 public enum PlayerOrder {
     ID("id"), // default
     NAME("name"),
@@ -16,4 +18,11 @@ public enum PlayerOrder {
     public String getFieldName() {
         return fieldName;
     }
-}
\ No newline at end of file
+
+    /**
+     * Sort by this field with id as a tiebreaker, so that equal keys always come back in the same order.
+     */
+    public Sort toSort() {
+        return this == ID ? Sort.by(fieldName) : Sort.by(fieldName, ID.fieldName);
+    }
+}
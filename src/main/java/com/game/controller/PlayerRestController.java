@@ -1,91 +1,204 @@
 package com.game.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.game.entity.Player;
-import com.game.entity.Profession;
-import com.game.entity.Race;
-import com.game.service.PlayerFilters;
+import com.game.exceptions.BadRequestException;
+import com.game.service.BulkItemResult;
+import com.game.service.ImportSummary;
+import com.game.service.PlayerCriteria;
 import com.game.service.PlayerService;
+import com.game.service.PlayerStatistics;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
 
 @RestController
 @RequestMapping("/rest")
 public class PlayerRestController {
 
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final MediaType CBOR = MediaType.valueOf("application/cbor");
+
+    private static final List<String> PLAYER_FIELDS = Arrays.asList(
+            "id", "name", "title", "race", "profession", "birthday", "banned", "experience", "level", "untilNextLevel");
+
     private PlayerService playerService;
+    private ObjectMapper objectMapper;
+    private int importMaxRecordLength;
 
     @Autowired
-    public PlayerRestController(PlayerService playerService) {
+    public PlayerRestController(PlayerService playerService, ObjectMapper objectMapper,
+                                @Value("${import.maxRecordLength:65536}") int importMaxRecordLength) {
         this.playerService = playerService;
+        this.objectMapper = objectMapper;
+        this.importMaxRecordLength = importMaxRecordLength;
     }
 
     @GetMapping("/players")
-    @ResponseStatus(HttpStatus.OK)
-    public List<Player> getPlayersList(
-            @RequestParam(value = "name", required = false) String name,
-            @RequestParam(value = "title", required = false) String title,
-            @RequestParam(value = "race", required = false) Race race,
-            @RequestParam(value = "profession", required = false) Profession profession,
-            @RequestParam(value = "after", required = false) Long after,
-            @RequestParam(value = "before", required = false) Long before,
-            @RequestParam(value = "banned", required = false) Boolean banned,
-            @RequestParam(value = "minExperience", required = false) Integer minExperience,
-            @RequestParam(value = "maxExperience", required = false) Integer maxExperience,
-            @RequestParam(value = "minLevel", required = false) Integer minLevel,
-            @RequestParam(value = "maxLevel", required = false) Integer maxLevel,
+    public ResponseEntity<List<?>> getPlayersList(
+            PlayerCriteria criteria,
             @RequestParam(value = "order", required = false, defaultValue = "ID") PlayerOrder order,
             @RequestParam(value = "pageNumber", required = false, defaultValue = "0") Integer pageNumber,
-            @RequestParam(value = "pageSize", required = false, defaultValue = "3") Integer pageSize) {
+            @RequestParam(value = "pageSize", required = false, defaultValue = "3") Integer pageSize,
+            @RequestParam(value = "withCount", required = false, defaultValue = "true") Boolean withCount,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "fields", required = false) String fields,
+            WebRequest webRequest) {
+
+        if (checkNotModified(webRequest, dataTag())) {
+            return null;
+        }
+
+        if (fields != null) {
+            return getPlayerFields(criteria, order, parseFields(fields), pageNumber, pageSize, withCount, cursor);
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        Slice<Player> slice;
+
+        if (cursor != null) {
+            // keyset mode: seek past the last row instead of skipping pageNumber * pageSize rows
+            Pageable pageable = PageRequest.of(0, pageSize, order.toSort());
+            slice = playerService.getPlayersSlice(
+                    criteria.toSpecification().and(PlayerCursor.decode(cursor, order).toSpecification()), pageable);
+
+            if (withCount) {
+                response.header(TOTAL_COUNT_HEADER, String.valueOf(playerService.getCount(criteria)));
+            }
+        } else {
+            Pageable pageable = PageRequest.of(pageNumber, pageSize, order.toSort());
 
-        Pageable pageable = PageRequest.of(pageNumber, pageSize, Sort.by(order.getFieldName()));
+            if (withCount) {
+                Page<Player> page = playerService.getAllPlayers(criteria, pageable);
+                response.header(TOTAL_COUNT_HEADER, String.valueOf(page.getTotalElements()));
+                slice = page;
+            } else {
+                slice = playerService.getPlayersSlice(criteria.toSpecification(), pageable);
+            }
+        }
 
-        return playerService.getAllPlayers(
-                Specification.where(
-                        PlayerFilters.nameFilter(name)
-                                .and(PlayerFilters.titleFilter(title)))
-                        .and(PlayerFilters.raceFilter(race))
-                        .and(PlayerFilters.professionFilter(profession))
-                        .and(PlayerFilters.birthdayFilter(after, before))
-                        .and(PlayerFilters.bannedFilter(banned))
-                        .and(PlayerFilters.experienceFilter(minExperience, maxExperience))
-                        .and(PlayerFilters.levelFilter(minLevel, maxLevel)), pageable)
-                .getContent();
+        if (slice.hasNext()) {
+            Player last = slice.getContent().get(slice.getNumberOfElements() - 1);
+            response.header(NEXT_CURSOR_HEADER, PlayerCursor.of(order, last).encode());
+        }
 
+        return response.body(slice.getContent());
+    }
+
+    // sparse fieldset: only the requested columns are selected, plus the id and sort key the next cursor is built from
+    private ResponseEntity<List<?>> getPlayerFields(PlayerCriteria criteria, PlayerOrder order, List<String> fields,
+                                                    Integer pageNumber, Integer pageSize, Boolean withCount, String cursor) {
+        Specification<Player> specification = criteria.toSpecification();
+        int page = pageNumber;
+
+        if (cursor != null) {
+            specification = specification.and(PlayerCursor.decode(cursor, order).toSpecification());
+            page = 0;
+        }
+
+        Set<String> selected = new LinkedHashSet<>(fields);
+        selected.add(PlayerOrder.ID.getFieldName());
+        selected.add(order.getFieldName());
+
+        Slice<Map<String, Object>> slice = playerService.getPlayerFields(
+                specification, new ArrayList<>(selected), PageRequest.of(page, pageSize, order.toSort()));
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+
+        if (withCount) {
+            response.header(TOTAL_COUNT_HEADER, String.valueOf(playerService.getCount(criteria)));
+        }
+
+        if (slice.hasNext()) {
+            Map<String, Object> last = slice.getContent().get(slice.getNumberOfElements() - 1);
+            response.header(NEXT_CURSOR_HEADER,
+                    PlayerCursor.of(order, (Long) last.get(PlayerOrder.ID.getFieldName()), last.get(order.getFieldName())).encode());
+        }
+
+        for (Map<String, Object> row : slice.getContent()) {
+            row.keySet().retainAll(fields);
+        }
+
+        return response.body(slice.getContent());
+    }
+
+    private static List<String> parseFields(String fields) {
+        Set<String> parsed = new LinkedHashSet<>();
+
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+
+            if (!PLAYER_FIELDS.contains(name)) {
+                throw new BadRequestException("Unknown field: " + name);
+            }
+
+            parsed.add(name);
+        }
+
+        return new ArrayList<>(parsed);
     }
 
     @GetMapping("/players/count")
-    @ResponseStatus(HttpStatus.OK)
-    public Integer getPlayersCount(
-            @RequestParam(value = "name", required = false) String name,
-            @RequestParam(value = "title", required = false) String title,
-            @RequestParam(value = "race", required = false) Race race,
-            @RequestParam(value = "profession", required = false) Profession profession,
-            @RequestParam(value = "after", required = false) Long after,
-            @RequestParam(value = "before", required = false) Long before,
-            @RequestParam(value = "banned", required = false) Boolean banned,
-            @RequestParam(value = "minExperience", required = false) Integer minExperience,
-            @RequestParam(value = "maxExperience", required = false) Integer maxExperience,
-            @RequestParam(value = "minLevel", required = false) Integer minLevel,
-            @RequestParam(value = "maxLevel", required = false) Integer maxLevel) {
-
-        return playerService.getCount(
-                Specification.where(
-                        PlayerFilters.nameFilter(name)
-                                .and(PlayerFilters.titleFilter(title)))
-                        .and(PlayerFilters.raceFilter(race))
-                        .and(PlayerFilters.professionFilter(profession))
-                        .and(PlayerFilters.birthdayFilter(after, before))
-                        .and(PlayerFilters.bannedFilter(banned))
-                        .and(PlayerFilters.experienceFilter(minExperience, maxExperience))
-                        .and(PlayerFilters.levelFilter(minLevel, maxLevel)))
-                .size();
+    public Long getPlayersCount(PlayerCriteria criteria, WebRequest webRequest) {
+        if (checkNotModified(webRequest, dataTag())) {
+            return null;
+        }
+
+        return playerService.getCount(criteria);
+    }
+
+    @GetMapping("/players/stats")
+    public PlayerStatistics getPlayersStatistics(PlayerCriteria criteria, WebRequest webRequest) {
+        if (checkNotModified(webRequest, dataTag())) {
+            return null;
+        }
+
+        return playerService.getStatistics(criteria);
+    }
+
+    @GetMapping("/players/export")
+    public void exportPlayers(
+            PlayerCriteria criteria,
+            @RequestParam(value = "order", required = false, defaultValue = "ID") PlayerOrder order,
+            @RequestParam(value = "format", required = false, defaultValue = "NDJSON") PlayerDataFormat format,
+            HttpServletResponse response) throws IOException {
+
+        response.setContentType(format.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"players." + format.getExtension() + "\"");
+
+        // rows go out as they are read, the response is committed once the first buffer fills up
+        PlayerExportWriter writer = new PlayerExportWriter(format, objectMapper.writer(), response.getOutputStream());
+        writer.writeHeader();
+        playerService.exportPlayers(criteria, order.toSort(), writer::write);
+        writer.flush();
     }
 
     @PostMapping("/players")
@@ -94,10 +207,59 @@ public class PlayerRestController {
         return playerService.createPlayer(player);
     }
 
-    @GetMapping("/players/{id}")
+    @PostMapping("/players/bulk")
+    @ResponseStatus(HttpStatus.OK)
+    public List<BulkItemResult> createPlayers(@RequestBody List<Player> players) {
+        return playerService.createPlayers(players);
+    }
+
+    @PostMapping("/players/bulk-update")
+    @ResponseStatus(HttpStatus.OK)
+    public Long updatePlayers(PlayerCriteria criteria, @RequestBody Player patch) {
+        return playerService.updatePlayers(criteria, patch);
+    }
+
+    @PostMapping("/players/bulk-delete")
     @ResponseStatus(HttpStatus.OK)
-    public Player getPlayer(@PathVariable("id") String id) {
-        return playerService.getPlayer(id);
+    public Long deletePlayers(PlayerCriteria criteria, @RequestBody(required = false) List<Long> ids) {
+        return playerService.deletePlayers(ids, criteria);
+    }
+
+    @PostMapping(value = "/players/import", consumes = {"application/x-ndjson", "text/csv"})
+    @ResponseStatus(HttpStatus.OK)
+    public ImportSummary importPlayers(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+            HttpServletRequest request) throws IOException {
+
+        PlayerDataFormat format = MediaType.valueOf(PlayerDataFormat.CSV.getContentType()).includes(contentType)
+                ? PlayerDataFormat.CSV : PlayerDataFormat.NDJSON;
+
+        InputStream body = request.getInputStream();
+        if ("gzip".equalsIgnoreCase(contentEncoding)) {
+            body = new GZIPInputStream(body);
+        }
+
+        try (InputStream input = body) {
+            return playerService.importPlayers(new PlayerImportReader(format, objectMapper.readerFor(Player.class), input, importMaxRecordLength));
+        }
+    }
+
+    @PostMapping("/players/levels/recalculate")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public void recalculateLevels() {
+        playerService.recalculateLevels();
+    }
+
+    @GetMapping("/players/{id}")
+    public Player getPlayer(@PathVariable("id") String id, WebRequest webRequest) {
+        Player player = playerService.getPlayer(id);
+
+        if (checkNotModified(webRequest, player.getId() + "-" + player.getVersion())) {
+            return null;
+        }
+
+        return player;
     }
 
     @PostMapping("/players/{id}")
@@ -111,4 +273,43 @@ public class PlayerRestController {
     public void deletePlayer(@PathVariable("id") String id) {
         playerService.deletePlayer(id);
     }
+
+    // the version is read before the query runs, so a concurrent write can only make the tag too old, never too new
+    private String dataTag() {
+        return playerService.getDataVersion();
+    }
+
+    // JSON and CBOR of the same data are different representations, so they get different tags and caches key on Accept
+    private static boolean checkNotModified(WebRequest webRequest, String tag) {
+        ((NativeWebRequest) webRequest).getNativeResponse(HttpServletResponse.class).addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        return webRequest.checkNotModified("\"" + tag + (prefersCbor(webRequest) ? "-cbor" : "") + "\"");
+    }
+
+    // the choice the message converters make: JSON is registered first, so CBOR only wins when it is ranked higher
+    private static boolean prefersCbor(WebRequest webRequest) {
+        String accept = webRequest.getHeader(HttpHeaders.ACCEPT);
+
+        if (accept == null) {
+            return false;
+        }
+
+        try {
+            List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+            MediaType.sortBySpecificityAndQuality(mediaTypes);
+
+            for (MediaType mediaType : mediaTypes) {
+                if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                    return false;
+                }
+
+                if (mediaType.isCompatibleWith(CBOR)) {
+                    return true;
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+
+        return false;
+    }
 }
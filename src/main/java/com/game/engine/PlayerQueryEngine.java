@@ -0,0 +1,216 @@
+package com.game.engine;
+
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.service.PlayerCriteria;
+import com.game.service.Transactions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Optional in-process read path for the list and count endpoints, see {@link PlayerTable}.
+ * <p>
+ * Enabled with {@code engine.memory.enabled=true}. The table is loaded at startup, reloaded after a level
+ * recalculation, and otherwise kept current by {@link com.game.service.PlayerServiceImpl}, which hands over
+ * every committed write.
+ * Name and title filters and ordering by name stay on SQL, since LIKE and string ordering follow
+ * the database collation.
+ */
+@Component
+public class PlayerQueryEngine implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PlayerQueryEngine.class);
+
+    private static final String LOAD_SQL = "SELECT id, name, title, race, profession, birthday, banned, "
+            + "experience, level, untilNextLevel FROM player ORDER BY id";
+
+    private final DataSource dataSource;
+    private final boolean enabled;
+    private final int fetchSize;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile PlayerTable table;
+    // writes handed over while load() scans the database, replayed on the new table before it replaces the old one
+    private List<Consumer<PlayerTable>> pending;
+
+    @Autowired
+    public PlayerQueryEngine(DataSource dataSource,
+                             @Value("${engine.memory.enabled:false}") boolean enabled,
+                             @Value("${engine.memory.fetchSize:10000}") int fetchSize) {
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (enabled) {
+            load();
+        }
+    }
+
+    /**
+     * Reloads the table from the database. Reads keep using the old table during the scan, and writes are applied
+     * to it as well as queued for the new one, so none of them is lost by the swap.
+     */
+    public synchronized void load() {
+        long start = System.currentTimeMillis();
+        PlayerTable loaded = new PlayerTable();
+
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(fetchSize);
+        jdbcTemplate.query(LOAD_SQL, resultSet -> {
+            Player player = new Player();
+            player.setId(resultSet.getLong("id"));
+            player.setName(resultSet.getString("name"));
+            player.setTitle(resultSet.getString("title"));
+            String race = resultSet.getString("race");
+            player.setRace(race == null ? null : Race.valueOf(race));
+            String profession = resultSet.getString("profession");
+            player.setProfession(profession == null ? null : Profession.valueOf(profession));
+            player.setBirthday(resultSet.getDate("birthday"));
+            player.setBanned((Boolean) resultSet.getObject("banned"));
+            player.setExperience((Integer) resultSet.getObject("experience"));
+            player.setLevel((Integer) resultSet.getObject("level"));
+            player.setUntilNextLevel((Integer) resultSet.getObject("untilNextLevel"));
+            loaded.upsert(player);
+        });
+
+        loaded.buildIndexes();
+
+        lock.writeLock().lock();
+        try {
+            pending.forEach(change -> change.accept(loaded));
+            pending = null;
+            table = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Loaded {} players into the in-memory query engine in {} ms", loaded.size(), System.currentTimeMillis() - start);
+    }
+
+    public boolean isEnabled() {
+        return table != null;
+    }
+
+    public boolean supports(PlayerCriteria criteria) {
+        return isEnabled() && criteria.getName() == null && criteria.getTitle() == null;
+    }
+
+    public boolean supports(PlayerCriteria criteria, Pageable pageable) {
+        return supports(criteria) && pageable.isPaged() && orderColumn(pageable.getSort()) != null;
+    }
+
+    public long count(PlayerCriteria criteria) {
+        lock.readLock().lock();
+        try {
+            return table.match(criteria).cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Page<Player> findAll(PlayerCriteria criteria, Pageable pageable) {
+        lock.readLock().lock();
+        try {
+            BitSet match = table.match(criteria);
+            List<Player> content = table.page(match, orderColumn(pageable.getSort()), pageable.getOffset(), pageable.getPageSize());
+            return new PageImpl<>(content, pageable, match.cardinality());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Applies saved players to the table. Callers run this once the write is committed, see
+     * {@link Transactions#afterCommit(Runnable)}, so that a rolled back write never shows up here.
+     */
+    public void saved(Collection<Player> players) {
+        write(target -> players.forEach(target::upsert));
+    }
+
+    public void deleted(Collection<Long> ids) {
+        write(target -> ids.forEach(target::remove));
+    }
+
+    private void write(Consumer<PlayerTable> change) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            change.accept(table);
+
+            if (pending != null) {
+                pending.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // only single-field ascending orders with the id tiebreaker from PlayerOrder are served from memory
+    private static PlayerTable.Column orderColumn(Sort sort) {
+        Iterator<Sort.Order> orders = sort.iterator();
+
+        if (!orders.hasNext()) {
+            return PlayerTable.Column.ID;
+        }
+
+        Sort.Order first = orders.next();
+
+        if (!first.isAscending()) {
+            return null;
+        }
+
+        while (orders.hasNext()) {
+            Sort.Order next = orders.next();
+
+            if (!next.isAscending() || !"id".equals(next.getProperty())) {
+                return null;
+            }
+        }
+
+        switch (first.getProperty()) {
+            case "id":
+                return PlayerTable.Column.ID;
+            case "birthday":
+                return PlayerTable.Column.BIRTHDAY;
+            case "experience":
+                return PlayerTable.Column.EXPERIENCE;
+            case "level":
+                return PlayerTable.Column.LEVEL;
+            default:
+                return null;
+        }
+    }
+}
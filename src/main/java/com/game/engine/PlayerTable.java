@@ -0,0 +1,490 @@
+package com.game.engine;
+
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.service.PlayerCriteria;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar copy of the player table.
+ * <p>
+ * Race, profession and banned are answered from one bitmap per value. Birthday, experience, level and id
+ * keep a row permutation sorted by (value, id) that serves both range filters and ordering. The permutations are
+ * built once by {@link #buildIndexes()}; after that a write moves its row to the new position, shifting only the
+ * rows in between. Null values sort first, like in MySQL and H2, and never match a range.
+ * A removed player's row is reused by the next insert, so the arrays don't grow with churn.
+ * <p>
+ * Not thread safe, {@link PlayerQueryEngine} guards it with a read/write lock.
+ */
+public class PlayerTable {
+
+    public enum Column {
+        ID, BIRTHDAY, EXPERIENCE, LEVEL
+    }
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final Column[] COLUMNS = Column.values();
+    private static final Race[] RACES = Race.values();
+    private static final Profession[] PROFESSIONS = Profession.values();
+
+    // rows ever used; rows below it that aren't live are free
+    private int rows;
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private String[] titles = new String[INITIAL_CAPACITY];
+    private long[] birthdays = new long[INITIAL_CAPACITY];
+    private int[] experiences = new int[INITIAL_CAPACITY];
+    private int[] levels = new int[INITIAL_CAPACITY];
+    private int[] untilNextLevels = new int[INITIAL_CAPACITY];
+
+    private final Map<Long, Integer> rowById = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private final BitSet[] byRace = bitmaps(RACES.length);
+    private final BitSet[] byProfession = bitmaps(PROFESSIONS.length);
+    private final BitSet bannedTrue = new BitSet();
+    private final BitSet bannedFalse = new BitSet();
+    private final Map<Column, BitSet> nulls = new EnumMap<>(Column.class);
+    private final BitSet nullUntilNextLevel = new BitSet();
+
+    // live rows per column in (value, id) order, the first sortedSize entries are used; null until built
+    private int[][] sorted;
+    private int sortedSize;
+    private final int[] nullCounts = new int[COLUMNS.length];
+
+    public PlayerTable() {
+        for (Column column : COLUMNS) {
+            nulls.put(column, new BitSet());
+        }
+    }
+
+    public int size() {
+        return rowById.size();
+    }
+
+    /**
+     * Sorts every column once, for after a bulk load. Later writes keep the order up to date.
+     */
+    public void buildIndexes() {
+        sorted = new int[COLUMNS.length][];
+        sortedSize = size();
+
+        for (Column column : COLUMNS) {
+            int[] permutation = new int[Math.max(INITIAL_CAPACITY, sortedSize)];
+            int position = 0;
+
+            for (int row = live.nextSetBit(0); row >= 0; row = live.nextSetBit(row + 1)) {
+                permutation[position++] = row;
+            }
+
+            sort(permutation, sortedSize, (a, b) -> compare(column, a, b));
+            sorted[column.ordinal()] = permutation;
+            nullCounts[column.ordinal()] = nulls.get(column).cardinality();
+        }
+    }
+
+    public void upsert(Player player) {
+        Integer existing = rowById.get(player.getId());
+        int row;
+        int[] positions = null;
+
+        if (existing != null) {
+            row = existing;
+            positions = positions(row);
+            countNulls(row, -1);
+            clearBitmaps(row);
+        } else {
+            row = live.nextClearBit(0);
+            if (row == rows) {
+                rows++;
+                ensureCapacity(rows);
+            }
+            rowById.put(player.getId(), row);
+        }
+
+        ids[row] = player.getId();
+        names[row] = player.getName();
+        titles[row] = player.getTitle();
+
+        live.set(row);
+
+        if (player.getRace() != null) {
+            byRace[player.getRace().ordinal()].set(row);
+        }
+
+        if (player.getProfession() != null) {
+            byProfession[player.getProfession().ordinal()].set(row);
+        }
+
+        if (player.getBanned() != null) {
+            (player.getBanned() ? bannedTrue : bannedFalse).set(row);
+        }
+
+        nulls.get(Column.BIRTHDAY).set(row, player.getBirthday() == null);
+        birthdays[row] = player.getBirthday() == null ? 0 : player.getBirthday().getTime();
+        nulls.get(Column.EXPERIENCE).set(row, player.getExperience() == null);
+        experiences[row] = player.getExperience() == null ? 0 : player.getExperience();
+        nulls.get(Column.LEVEL).set(row, player.getLevel() == null);
+        levels[row] = player.getLevel() == null ? 0 : player.getLevel();
+        nullUntilNextLevel.set(row, player.getUntilNextLevel() == null);
+        untilNextLevels[row] = player.getUntilNextLevel() == null ? 0 : player.getUntilNextLevel();
+
+        if (sorted == null) {
+            return;
+        }
+
+        if (positions != null) {
+            for (Column column : COLUMNS) {
+                move(column, positions[column.ordinal()], row);
+            }
+        } else {
+            insert(row);
+        }
+
+        countNulls(row, 1);
+    }
+
+    public void remove(Long id) {
+        Integer row = rowById.remove(id);
+
+        if (row == null) {
+            return;
+        }
+
+        if (sorted != null) {
+            for (Column column : COLUMNS) {
+                int[] permutation = sorted[column.ordinal()];
+                int position = position(column, permutation, 0, sortedSize, row);
+                System.arraycopy(permutation, position + 1, permutation, position, sortedSize - position - 1);
+            }
+            sortedSize--;
+            countNulls(row, -1);
+        }
+
+        clearBitmaps(row);
+        live.clear(row);
+        nulls.values().forEach(bitmap -> bitmap.clear(row));
+        nullUntilNextLevel.clear(row);
+        names[row] = null;
+        titles[row] = null;
+    }
+
+    /**
+     * Rows matching every filter of the criteria except name and title.
+     */
+    public BitSet match(PlayerCriteria criteria) {
+        BitSet result = (BitSet) live.clone();
+
+        if (criteria.getRace() != null) {
+            result.and(byRace[criteria.getRace().ordinal()]);
+        }
+
+        if (criteria.getProfession() != null) {
+            result.and(byProfession[criteria.getProfession().ordinal()]);
+        }
+
+        if (criteria.getBanned() != null) {
+            result.and(criteria.getBanned() ? bannedTrue : bannedFalse);
+        }
+
+        if (criteria.getAfter() != null || criteria.getBefore() != null) {
+            result.and(range(Column.BIRTHDAY,
+                    criteria.getAfter() == null ? Long.MIN_VALUE : criteria.getAfter(),
+                    criteria.getBefore() == null ? Long.MAX_VALUE : criteria.getBefore()));
+        }
+
+        if (criteria.getMinExperience() != null || criteria.getMaxExperience() != null) {
+            result.and(range(Column.EXPERIENCE,
+                    criteria.getMinExperience() == null ? Long.MIN_VALUE : criteria.getMinExperience(),
+                    criteria.getMaxExperience() == null ? Long.MAX_VALUE : criteria.getMaxExperience()));
+        }
+
+        if (criteria.getMinLevel() != null || criteria.getMaxLevel() != null) {
+            result.and(range(Column.LEVEL,
+                    criteria.getMinLevel() == null ? Long.MIN_VALUE : criteria.getMinLevel(),
+                    criteria.getMaxLevel() == null ? Long.MAX_VALUE : criteria.getMaxLevel()));
+        }
+
+        return result;
+    }
+
+    /**
+     * Matching rows in (order, id) order, skipping the first {@code offset} of them.
+     */
+    public List<Player> page(BitSet match, Column order, long offset, int limit) {
+        int[] permutation = sortedRows(order);
+        List<Player> content = new ArrayList<>(Math.max(0, Math.min(limit, match.cardinality())));
+        long skipped = 0;
+
+        for (int i = 0; i < sortedSize && content.size() < limit; i++) {
+            int row = permutation[i];
+
+            if (!match.get(row)) {
+                continue;
+            }
+
+            if (skipped++ < offset) {
+                continue;
+            }
+
+            content.add(toPlayer(row));
+        }
+
+        return content;
+    }
+
+    private BitSet range(Column column, long from, long to) {
+        int[] permutation = sortedRows(column);
+        BitSet result = new BitSet();
+
+        int start = lowerBound(column, permutation, nullCounts[column.ordinal()], from);
+        for (int i = start; i < sortedSize && value(column, permutation[i]) <= to; i++) {
+            result.set(permutation[i]);
+        }
+
+        return result;
+    }
+
+    private int lowerBound(Column column, int[] permutation, int nullCount, long from) {
+        int low = nullCount;
+        int high = sortedSize;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (value(column, permutation[middle]) < from) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    // first position in [low, high) whose row doesn't sort before the given one; the row's own position if it's there
+    private int position(Column column, int[] permutation, int low, int high, int row) {
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (compare(column, permutation[middle], row) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    // positions of a live row in every permutation, taken before its values change
+    private int[] positions(int row) {
+        if (sorted == null) {
+            return null;
+        }
+
+        int[] positions = new int[COLUMNS.length];
+
+        for (Column column : COLUMNS) {
+            positions[column.ordinal()] = position(column, sorted[column.ordinal()], 0, sortedSize, row);
+        }
+
+        return positions;
+    }
+
+    private void insert(int row) {
+        if (sortedSize == sorted[0].length) {
+            for (int i = 0; i < sorted.length; i++) {
+                sorted[i] = Arrays.copyOf(sorted[i], sortedSize * 2);
+            }
+        }
+
+        for (Column column : COLUMNS) {
+            int[] permutation = sorted[column.ordinal()];
+            int position = position(column, permutation, 0, sortedSize, row);
+            System.arraycopy(permutation, position, permutation, position + 1, sortedSize - position);
+            permutation[position] = row;
+        }
+
+        sortedSize++;
+    }
+
+    // moves a row from its old position to where its new values belong, shifting the rows in between by one
+    private void move(Column column, int from, int row) {
+        int[] permutation = sorted[column.ordinal()];
+
+        if (from > 0 && compare(column, permutation[from - 1], row) > 0) {
+            int to = position(column, permutation, 0, from, row);
+            System.arraycopy(permutation, to, permutation, to + 1, from - to);
+            permutation[to] = row;
+        } else if (from < sortedSize - 1 && compare(column, permutation[from + 1], row) < 0) {
+            int to = position(column, permutation, from + 1, sortedSize, row) - 1;
+            System.arraycopy(permutation, from + 1, permutation, from, to - from);
+            permutation[to] = row;
+        }
+    }
+
+    private void countNulls(int row, int delta) {
+        if (sorted == null) {
+            return;
+        }
+
+        for (Column column : COLUMNS) {
+            if (nulls.get(column).get(row)) {
+                nullCounts[column.ordinal()] += delta;
+            }
+        }
+    }
+
+    private int[] sortedRows(Column column) {
+        if (sorted == null) {
+            buildIndexes();
+        }
+
+        return sorted[column.ordinal()];
+    }
+
+    private int compare(Column column, int a, int b) {
+        BitSet columnNulls = nulls.get(column);
+        boolean aNull = columnNulls.get(a);
+        boolean bNull = columnNulls.get(b);
+
+        if (aNull != bNull) {
+            return aNull ? -1 : 1;
+        }
+
+        int byValue = aNull ? 0 : Long.compare(value(column, a), value(column, b));
+        return byValue != 0 ? byValue : Long.compare(ids[a], ids[b]);
+    }
+
+    private long value(Column column, int row) {
+        switch (column) {
+            case BIRTHDAY:
+                return birthdays[row];
+            case EXPERIENCE:
+                return experiences[row];
+            case LEVEL:
+                return levels[row];
+            default:
+                return ids[row];
+        }
+    }
+
+    private Player toPlayer(int row) {
+        Player player = new Player();
+        player.setId(ids[row]);
+        player.setName(names[row]);
+        player.setTitle(titles[row]);
+
+        for (int i = 0; i < RACES.length; i++) {
+            if (byRace[i].get(row)) {
+                player.setRace(RACES[i]);
+            }
+        }
+
+        for (int i = 0; i < PROFESSIONS.length; i++) {
+            if (byProfession[i].get(row)) {
+                player.setProfession(PROFESSIONS[i]);
+            }
+        }
+
+        if (bannedTrue.get(row) || bannedFalse.get(row)) {
+            player.setBanned(bannedTrue.get(row));
+        }
+
+        if (!nulls.get(Column.BIRTHDAY).get(row)) {
+            player.setBirthday(new java.sql.Date(birthdays[row]));
+        }
+
+        if (!nulls.get(Column.EXPERIENCE).get(row)) {
+            player.setExperience(experiences[row]);
+        }
+
+        if (!nulls.get(Column.LEVEL).get(row)) {
+            player.setLevel(levels[row]);
+        }
+
+        if (!nullUntilNextLevel.get(row)) {
+            player.setUntilNextLevel(untilNextLevels[row]);
+        }
+
+        return player;
+    }
+
+    private void clearBitmaps(int row) {
+        for (BitSet bitmap : byRace) {
+            bitmap.clear(row);
+        }
+
+        for (BitSet bitmap : byProfession) {
+            bitmap.clear(row);
+        }
+
+        bannedTrue.clear(row);
+        bannedFalse.clear(row);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+
+        int newLength = Math.max(capacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, newLength);
+        names = Arrays.copyOf(names, newLength);
+        titles = Arrays.copyOf(titles, newLength);
+        birthdays = Arrays.copyOf(birthdays, newLength);
+        experiences = Arrays.copyOf(experiences, newLength);
+        levels = Arrays.copyOf(levels, newLength);
+        untilNextLevels = Arrays.copyOf(untilNextLevels, newLength);
+    }
+
+    private static BitSet[] bitmaps(int count) {
+        BitSet[] bitmaps = new BitSet[count];
+
+        for (int i = 0; i < count; i++) {
+            bitmaps[i] = new BitSet();
+        }
+
+        return bitmaps;
+    }
+
+    private interface RowComparator {
+        int compare(int a, int b);
+    }
+
+    // merge sort on the first length primitive row numbers, avoids boxing millions of Integers
+    private static void sort(int[] rows, int length, RowComparator comparator) {
+        int[] buffer = new int[length];
+
+        for (int width = 1; width < length; width *= 2) {
+            for (int low = 0; low < length - width; low += 2 * width) {
+                int middle = low + width;
+                int high = Math.min(low + 2 * width, length);
+
+                if (comparator.compare(rows[middle - 1], rows[middle]) <= 0) {
+                    continue;
+                }
+
+                System.arraycopy(rows, low, buffer, low, high - low);
+                int left = low;
+                int right = middle;
+
+                for (int i = low; i < high; i++) {
+                    if (right >= high || (left < middle && comparator.compare(buffer[left], buffer[right]) <= 0)) {
+                        rows[i] = buffer[left++];
+                    } else {
+                        rows[i] = buffer[right++];
+                    }
+                }
+            }
+        }
+    }
+}
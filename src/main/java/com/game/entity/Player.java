@@ -1,10 +1,16 @@
 package com.game.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import java.util.Date;
 
 @Entity
 @Table(name = "player")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "player")
 public class Player {
 
     @Id
@@ -40,6 +46,11 @@ public class Player {
     @Column(name = "untilNextLevel")
     private Integer untilNextLevel;
 
+    @Version
+    @Column(name = "version")
+    @JsonIgnore
+    private Integer version;
+
     public Long getId() {
         return id;
     }
@@ -119,4 +130,12 @@ public class Player {
     public void setUntilNextLevel(Integer untilNextLevel) {
         this.untilNextLevel = untilNextLevel;
     }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,68 @@
+package com.game.entity;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+@Entity
+@Table(name = "player_ngram")
+@IdClass(PlayerNgram.Key.class)
+public class PlayerNgram {
+
+    @Id
+    @Column(name = "player_id")
+    private Long playerId;
+
+    @Id
+    @Column(name = "field")
+    private String field;
+
+    @Id
+    @Column(name = "gram")
+    private String gram;
+
+    public PlayerNgram() {
+    }
+
+    public PlayerNgram(Long playerId, String field, String gram) {
+        this.playerId = playerId;
+        this.field = field;
+        this.gram = gram;
+    }
+
+    public Long getPlayerId() {
+        return playerId;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public String getGram() {
+        return gram;
+    }
+
+    public static class Key implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Long playerId;
+        private String field;
+        private String gram;
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return Objects.equals(playerId, key.playerId)
+                    && Objects.equals(field, key.field)
+                    && Objects.equals(gram, key.gram);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(playerId, field, gram);
+        }
+    }
+}
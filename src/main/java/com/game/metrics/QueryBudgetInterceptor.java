@@ -0,0 +1,71 @@
+package com.game.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a {@link QueryLog} for every request and warns about requests that run more than {@code maxQueries}
+ * statements, or one identical statement more than {@code maxRepeats} times. The statement count goes
+ * into {@value #METRIC} per URI pattern and the log stays on the request for tests to assert on.
+ */
+public class QueryBudgetInterceptor implements HandlerInterceptor {
+
+    public static final String METRIC = "http.server.queries";
+
+    private static final Logger log = LoggerFactory.getLogger(QueryBudgetInterceptor.class);
+
+    private final MeterRegistry meterRegistry;
+    private final int maxQueries;
+    private final int maxRepeats;
+
+    public QueryBudgetInterceptor(MeterRegistry meterRegistry, int maxQueries, int maxRepeats) {
+        this.meterRegistry = meterRegistry;
+        this.maxQueries = maxQueries;
+        this.maxRepeats = maxRepeats;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        QueryLog.start();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        QueryLog queries = QueryLog.stop();
+
+        if (queries == null) {
+            return;
+        }
+
+        request.setAttribute(QueryLog.ATTRIBUTE, queries);
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+
+        DistributionSummary.builder(METRIC)
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(queries.getCount());
+
+        if (queries.getCount() > maxQueries) {
+            log.warn("{} {} ran {} SQL statements in {} ms, over the budget of {}", request.getMethod(), uri,
+                    queries.getCount(), TimeUnit.NANOSECONDS.toMillis(queries.getNanos()), maxQueries);
+        }
+
+        Map<String, Integer> repeated = queries.getRepeated(maxRepeats);
+        if (!repeated.isEmpty()) {
+            log.warn("{} {} repeated SQL statements, possibly N+1: {}", request.getMethod(), uri, repeated);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.game.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every statement executed through this data source into {@value #METRIC}, tagged with the execute method,
+ * and records it into the thread's {@link QueryLog} when one is active. A JDBC batch counts as one statement.
+ */
+public class QueryCountingDataSource extends DelegatingDataSource implements Closeable {
+
+    public static final String METRIC = "jdbc.statements";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public QueryCountingDataSource(DataSource targetDataSource, MeterRegistry meterRegistry) {
+        super(targetDataSource);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (getTargetDataSource() instanceof Closeable) {
+            ((Closeable) getTargetDataSource()).close();
+        } else if (getTargetDataSource() instanceof EmbeddedDatabase) {
+            ((EmbeddedDatabase) getTargetDataSource()).shutdown();
+        }
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(QueryCountingDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+
+                    switch (method.getName()) {
+                        case "createStatement":
+                            return statement(Statement.class, (Statement) result, null);
+                        case "prepareStatement":
+                            return statement(PreparedStatement.class, (Statement) result, (String) args[0]);
+                        case "prepareCall":
+                            return statement(CallableStatement.class, (Statement) result, (String) args[0]);
+                        default:
+                            return result;
+                    }
+                });
+    }
+
+    private Object statement(Class<? extends Statement> type, Statement statement, String preparedSql) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (!method.getName().startsWith("execute")) {
+                return invoke(statement, method, args);
+            }
+
+            long start = System.nanoTime();
+            try {
+                return invoke(statement, method, args);
+            } finally {
+                long nanos = System.nanoTime() - start;
+                timers.computeIfAbsent(method.getName(), name -> Timer.builder(METRIC)
+                        .tag("method", name)
+                        .register(meterRegistry))
+                        .record(nanos, TimeUnit.NANOSECONDS);
+
+                QueryLog log = QueryLog.current();
+
+                if (log != null) {
+                    String sql = preparedSql != null ? preparedSql
+                            : args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : "batch";
+                    log.record(sql, nanos);
+                }
+            }
+        };
+
+        return Proxy.newProxyInstance(QueryCountingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
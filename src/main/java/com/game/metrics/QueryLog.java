@@ -0,0 +1,68 @@
+package com.game.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JDBC statements executed on the current thread between {@link #start()} and {@link #stop()},
+ * filled in by {@link QueryCountingDataSource}. A JDBC batch counts as one statement.
+ */
+public class QueryLog {
+
+    /**
+     * Request attribute under which {@link QueryBudgetInterceptor} leaves the finished log.
+     */
+    public static final String ATTRIBUTE = QueryLog.class.getName();
+
+    private static final ThreadLocal<QueryLog> CURRENT = new ThreadLocal<>();
+
+    private int count;
+    private long nanos;
+    private final Map<String, Integer> executions = new LinkedHashMap<>();
+
+    public static QueryLog start() {
+        QueryLog log = new QueryLog();
+        CURRENT.set(log);
+        return log;
+    }
+
+    public static QueryLog current() {
+        return CURRENT.get();
+    }
+
+    public static QueryLog stop() {
+        QueryLog log = CURRENT.get();
+        CURRENT.remove();
+        return log;
+    }
+
+    void record(String sql, long nanos) {
+        count++;
+        this.nanos += nanos;
+        executions.merge(sql, 1, Integer::sum);
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * Identical SQL strings that ran more than {@code limit} times, with their number of executions.
+     * The same statement over and over in one request usually means a query per row, an N+1.
+     */
+    public Map<String, Integer> getRepeated(int limit) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+
+        executions.forEach((sql, times) -> {
+            if (times > limit) {
+                repeated.put(sql, times);
+            }
+        });
+
+        return repeated;
+    }
+}
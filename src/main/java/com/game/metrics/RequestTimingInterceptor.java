@@ -0,0 +1,67 @@
+package com.game.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Times every handled request into {@value #METRIC}, tagged with method, URI pattern, status and outcome,
+ * so the timer's count doubles as the request and error counter.
+ * <p>
+ * The URI is the mapping pattern, like {@code /rest/players/{id}}, which keeps the number of series bounded.
+ * Streaming responses are timed until the last byte is written.
+ */
+public class RequestTimingInterceptor implements HandlerInterceptor {
+
+    public static final String METRIC = "http.server.requests";
+
+    private static final String SAMPLE_ATTRIBUTE = RequestTimingInterceptor.class.getName() + ".sample";
+
+    private final MeterRegistry meterRegistry;
+
+    public RequestTimingInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(SAMPLE_ATTRIBUTE, Timer.start(meterRegistry));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Timer.Sample sample = (Timer.Sample) request.getAttribute(SAMPLE_ATTRIBUTE);
+
+        if (sample == null) {
+            return;
+        }
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        int status = ex != null && response.getStatus() < 400 ? 500 : response.getStatus();
+
+        sample.stop(Timer.builder(METRIC)
+                .tag("method", request.getMethod())
+                .tag("uri", pattern == null ? "UNKNOWN" : pattern.toString())
+                .tag("status", String.valueOf(status))
+                .tag("outcome", outcome(status))
+                .tag("exception", ex == null ? "None" : ex.getClass().getSimpleName())
+                .register(meterRegistry));
+    }
+
+    private static String outcome(int status) {
+        if (status >= 500) {
+            return "SERVER_ERROR";
+        }
+
+        if (status >= 400) {
+            return "CLIENT_ERROR";
+        }
+
+        return "SUCCESS";
+    }
+}
@@ -0,0 +1,50 @@
+package com.game.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times service method calls into {@value #METRIC}, tagged with the method name and the exception thrown, if any.
+ * Timers of successful calls are looked up once per method, so a call costs two clock reads and a map lookup.
+ */
+public class ServiceTimingInterceptor implements MethodInterceptor {
+
+    public static final String METRIC = "player.service";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Method, Timer> successTimers = new ConcurrentHashMap<>();
+
+    public ServiceTimingInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        long start = meterRegistry.config().clock().monotonicTime();
+
+        try {
+            Object result = invocation.proceed();
+            successTimers.computeIfAbsent(invocation.getMethod(), method -> timer(method, "None"))
+                    .record(meterRegistry.config().clock().monotonicTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Throwable e) {
+            timer(invocation.getMethod(), e.getClass().getSimpleName())
+                    .record(meterRegistry.config().clock().monotonicTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private Timer timer(Method method, String exception) {
+        return Timer.builder(METRIC)
+                .tag("method", method.getName())
+                .tag("exception", exception)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,97 @@
+package com.game.repository;
+
+import com.game.entity.Player;
+import com.game.entity.Race;
+import com.game.service.PlayerCriteria;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Specification queries that go through the Hibernate query cache.
+ * <p>
+ * {@code findAll} and {@code count} take precedence over the {@link org.springframework.data.jpa.repository.JpaSpecificationExecutor}
+ * versions, which would leave the count query uncached.
+ */
+public interface PlayerRepositoryCustom {
+
+    Page<Player> findAll(Specification<Player> specification, Pageable pageable);
+
+    long count(Specification<Player> specification);
+
+    /**
+     * Same as {@code findAll(specification, pageable)}, but without the extra count query.
+     */
+    Slice<Player> findSlice(Specification<Player> specification, Pageable pageable);
+
+    /**
+     * Like {@code findSlice}, but selects only the given attributes. Each row maps the attribute names to their values
+     * in the given order; no entities are loaded, so nothing enters the persistence context.
+     */
+    Slice<Map<String, Object>> findFields(Specification<Player> specification, List<String> attributes, Pageable pageable);
+
+    /**
+     * Inserts new players as one JDBC batch on the current transaction's connection and sets their generated ids.
+     * Hibernate can't batch inserts of IDENTITY entities, so this bypasses the persistence context.
+     */
+    void insertAll(List<Player> players);
+
+    /**
+     * Streams every matching player to the consumer with a forward-only cursor. Each entity is detached
+     * once consumed and nothing goes to the second-level cache, so memory doesn't grow with the result.
+     * Must run inside a transaction.
+     */
+    void scrollAll(Specification<Player> specification, Sort sort, int fetchSize, Consumer<Player> consumer);
+
+    /**
+     * Ids of the first {@code limit} matching players in id order, locked with SELECT ... FOR UPDATE
+     * until the current transaction ends.
+     */
+    List<Long> lockIds(Specification<Player> specification, int limit);
+
+    /**
+     * Sets the given attributes on the players with these ids in one UPDATE statement and bumps their version.
+     *
+     * @return number of updated rows
+     */
+    int updateAll(Collection<Long> ids, Map<String, Object> values);
+
+    /**
+     * Single DELETE statement, the entity is never loaded.
+     *
+     * @return number of deleted rows
+     */
+    int removeById(Long id);
+
+    /**
+     * Single DELETE statement for all ids, player_ngram rows go with ON DELETE CASCADE.
+     *
+     * @return number of deleted rows
+     */
+    int removeAllByIdIn(Collection<Long> ids);
+
+    /**
+     * Number of matching players per value of the attribute, from one GROUP BY query, in value order.
+     * Players without a value are left out.
+     */
+    <T> Map<T, Long> countBy(Specification<Player> specification, String attribute);
+
+    /**
+     * Sum of the integer {@code valueAttribute} over the matching players per value of {@code groupAttribute},
+     * from one GROUP BY query. Averages are left to the caller, since AVG of an integer column is truncated on some databases.
+     */
+    <T> Map<T, Long> sumBy(Specification<Player> specification, String groupAttribute, String valueAttribute);
+
+    /**
+     * Median experience of the players matching the criteria per race, from one window function query
+     * that keeps only the middle one or two rows of each race.
+     */
+    Map<Race, Double> medianExperienceByRace(PlayerCriteria criteria);
+}
@@ -0,0 +1,369 @@
+package com.game.repository;
+
+import com.game.entity.Player;
+import com.game.entity.Race;
+import com.game.service.PlayerCriteria;
+import com.game.service.Transactions;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.repository.support.PageableExecutionUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+public class PlayerRepositoryImpl implements PlayerRepositoryCustom {
+
+    private static final String INSERT_SQL = "INSERT INTO player(name, title, race, profession, birthday, banned, "
+            + "experience, level, untilNextLevel, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<Player> findAll(Specification<Player> specification, Pageable pageable) {
+        TypedQuery<Player> query = createQuery(specification, pageable.getSort());
+
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable, () -> count(specification));
+    }
+
+    @Override
+    public long count(Specification<Player> specification) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        Root<Player> root = query.from(Player.class);
+        applySpecification(specification, root, query, criteriaBuilder);
+        query.select(criteriaBuilder.count(root));
+
+        return entityManager.createQuery(query)
+                .setHint(QueryHints.CACHEABLE, true)
+                .getSingleResult();
+    }
+
+    @Override
+    public Slice<Player> findSlice(Specification<Player> specification, Pageable pageable) {
+        return slice(createQuery(specification, pageable.getSort()), pageable);
+    }
+
+    @Override
+    public Slice<Map<String, Object>> findFields(Specification<Player> specification, List<String> attributes, Pageable pageable) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<Player> root = query.from(Player.class);
+        applySpecification(specification, root, query, criteriaBuilder);
+
+        List<Selection<?>> selections = new ArrayList<>(attributes.size());
+        for (String attribute : attributes) {
+            selections.add(root.get(attribute));
+        }
+        query.multiselect(selections).orderBy(toOrders(pageable.getSort(), root, criteriaBuilder));
+
+        Slice<Tuple> rows = slice(entityManager.createQuery(query).setHint(QueryHints.CACHEABLE, true), pageable);
+
+        return rows.map(row -> {
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (int i = 0; i < attributes.size(); i++) {
+                values.put(attributes.get(i), row.get(i));
+            }
+            return values;
+        });
+    }
+
+    private static <T> Slice<T> slice(TypedQuery<T> query, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(query.getResultList(), pageable, false);
+        }
+
+        // one extra row tells us whether there is a next page
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize() + 1);
+        List<T> content = query.getResultList();
+
+        boolean hasNext = content.size() > pageable.getPageSize();
+
+        if (hasNext) {
+            content = content.subList(0, pageable.getPageSize());
+        }
+
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    @Override
+    public void scrollAll(Specification<Player> specification, Sort sort, int fetchSize, Consumer<Player> consumer) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Player> query = criteriaBuilder.createQuery(Player.class);
+        Root<Player> root = query.from(Player.class);
+        applySpecification(specification, root, query, criteriaBuilder);
+        query.select(root).orderBy(toOrders(sort, root, criteriaBuilder));
+
+        // Hibernate streams a typed query through a forward-only ScrollableResults
+        TypedQuery<Player> typedQuery = entityManager.createQuery(query)
+                .setHint(QueryHints.FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.READ_ONLY, true)
+                .setHint(QueryHints.CACHE_MODE, CacheMode.IGNORE);
+
+        try (Stream<Player> players = typedQuery.getResultStream()) {
+            players.forEach(player -> {
+                consumer.accept(player);
+                entityManager.detach(player);
+            });
+        }
+    }
+
+    @Override
+    public void insertAll(List<Player> players) {
+        if (players.isEmpty()) {
+            return;
+        }
+
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (Player player : players) {
+                    statement.setString(1, player.getName());
+                    statement.setString(2, player.getTitle());
+                    statement.setString(3, player.getRace().name());
+                    statement.setString(4, player.getProfession().name());
+                    statement.setTimestamp(5, new Timestamp(player.getBirthday().getTime()));
+                    statement.setBoolean(6, player.getBanned());
+                    statement.setInt(7, player.getExperience());
+                    statement.setInt(8, player.getLevel());
+                    statement.setInt(9, player.getUntilNextLevel());
+                    statement.addBatch();
+                }
+
+                statement.executeBatch();
+
+                // keys come back in insert order
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (Player player : players) {
+                        if (!keys.next()) {
+                            throw new SQLException("Driver returned fewer generated keys than inserted rows");
+                        }
+
+                        player.setId(keys.getLong(1));
+                        player.setVersion(0);
+                    }
+                }
+            }
+        });
+
+        // Hibernate didn't see these inserts, so cached query results on the player table are stale
+        SessionFactory sessionFactory = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class);
+        Transactions.afterCommit(() -> sessionFactory.getCache().evictDefaultQueryRegion());
+    }
+
+    @Override
+    public List<Long> lockIds(Specification<Player> specification, int limit) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        Root<Player> root = query.from(Player.class);
+        applySpecification(specification, root, query, criteriaBuilder);
+        query.select(root.get("id")).orderBy(criteriaBuilder.asc(root.get("id")));
+
+        return entityManager.createQuery(query)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public int updateAll(Collection<Long> ids, Map<String, Object> values) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        StringBuilder sql = new StringBuilder("UPDATE player SET ");
+        values.keySet().forEach(attribute -> sql.append(attribute).append(" = ?, "));
+        sql.append("version = version + 1 WHERE id IN (").append(placeholders(ids.size())).append(')');
+
+        List<Object> parameters = new ArrayList<>(values.values());
+        parameters.addAll(ids);
+
+        return executeAndEvict(sql.toString(), parameters, ids);
+    }
+
+    @Override
+    public int removeById(Long id) {
+        return removeAllByIdIn(Collections.singletonList(id));
+    }
+
+    @Override
+    public int removeAllByIdIn(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        return executeAndEvict("DELETE FROM player WHERE id IN (" + placeholders(ids.size()) + ")", new ArrayList<>(ids), ids);
+    }
+
+    /**
+     * Runs the statement over JDBC, since a JPQL bulk statement would make Hibernate drop the whole player region.
+     * Only the given players are evicted instead: right away, so the rest of the transaction reads the new rows,
+     * and again after commit, in case another transaction cached the old ones in between.
+     */
+    private int executeAndEvict(String sql, List<Object> parameters, Collection<Long> ids) {
+        int rows = entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (int i = 0; i < parameters.size(); i++) {
+                    statement.setObject(i + 1, toJdbc(parameters.get(i)));
+                }
+
+                return statement.executeUpdate();
+            }
+        });
+
+        List<Long> evicted = new ArrayList<>(ids);
+        evict(evicted);
+        Transactions.afterCommit(() -> evict(evicted));
+
+        return rows;
+    }
+
+    private void evict(Collection<Long> ids) {
+        SessionFactory sessionFactory = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class);
+        ids.forEach(id -> sessionFactory.getCache().evict(Player.class, id));
+        sessionFactory.getCache().evictDefaultQueryRegion();
+    }
+
+    private static Object toJdbc(Object value) {
+        if (value instanceof Enum) {
+            return ((Enum<?>) value).name();
+        }
+
+        if (value instanceof Date) {
+            return new Timestamp(((Date) value).getTime());
+        }
+
+        return value;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    @Override
+    public <T> Map<T, Long> countBy(Specification<Player> specification, String attribute) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = criteriaBuilder.createQuery(Object[].class);
+        Root<Player> root = query.from(Player.class);
+        applySpecification(specification, root, query, criteriaBuilder);
+        Path<T> group = root.get(attribute);
+        query.multiselect(group, criteriaBuilder.count(root)).groupBy(group).orderBy(criteriaBuilder.asc(group));
+
+        return groupedResult(query);
+    }
+
+    @Override
+    public <T> Map<T, Long> sumBy(Specification<Player> specification, String groupAttribute, String valueAttribute) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = criteriaBuilder.createQuery(Object[].class);
+        Root<Player> root = query.from(Player.class);
+        applySpecification(specification, root, query, criteriaBuilder);
+        Path<T> group = root.get(groupAttribute);
+        query.multiselect(group, criteriaBuilder.sumAsLong(root.get(valueAttribute))).groupBy(group).orderBy(criteriaBuilder.asc(group));
+
+        return groupedResult(query);
+    }
+
+    @Override
+    public Map<Race, Double> medianExperienceByRace(PlayerCriteria criteria) {
+        Map<String, Object> parameters = new HashMap<>();
+        String sql = "SELECT race, experience FROM ("
+                + "SELECT race, experience, ROW_NUMBER() OVER (PARTITION BY race ORDER BY experience, id) AS position, "
+                + "COUNT(*) OVER (PARTITION BY race) AS players "
+                + "FROM player WHERE race IS NOT NULL AND experience IS NOT NULL AND " + criteria.toSqlCondition(parameters)
+                + ") ranked WHERE position IN (FLOOR((players + 1) / 2), FLOOR((players + 2) / 2))";
+
+        javax.persistence.Query query = entityManager.createNativeQuery(sql);
+        parameters.forEach(query::setParameter);
+
+        Map<Race, long[]> middle = new EnumMap<>(Race.class);
+        for (Object result : query.getResultList()) {
+            Object[] row = (Object[]) result;
+            long[] sumAndCount = middle.computeIfAbsent(Race.valueOf((String) row[0]), race -> new long[2]);
+            sumAndCount[0] += ((Number) row[1]).longValue();
+            sumAndCount[1]++;
+        }
+
+        Map<Race, Double> medians = new EnumMap<>(Race.class);
+        middle.forEach((race, sumAndCount) -> medians.put(race, (double) sumAndCount[0] / sumAndCount[1]));
+
+        return medians;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <K, V> Map<K, V> groupedResult(CriteriaQuery<Object[]> query) {
+        Map<K, V> result = new LinkedHashMap<>();
+
+        for (Object[] row : entityManager.createQuery(query).setHint(QueryHints.CACHEABLE, true).getResultList()) {
+            if (row[0] != null) {
+                result.put((K) row[0], (V) row[1]);
+            }
+        }
+
+        return result;
+    }
+
+    private TypedQuery<Player> createQuery(Specification<Player> specification, Sort sort) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Player> query = criteriaBuilder.createQuery(Player.class);
+        Root<Player> root = query.from(Player.class);
+        applySpecification(specification, root, query, criteriaBuilder);
+        query.select(root).orderBy(toOrders(sort, root, criteriaBuilder));
+
+        return entityManager.createQuery(query)
+                .setHint(QueryHints.CACHEABLE, true);
+    }
+
+    private static void applySpecification(Specification<Player> specification, Root<Player> root,
+                                           CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
+        if (specification == null) {
+            return;
+        }
+
+        Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+
+        if (predicate != null) {
+            query.where(predicate);
+        }
+    }
+}
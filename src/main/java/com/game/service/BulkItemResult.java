@@ -0,0 +1,41 @@
+package com.game.service;
+
+/**
+ * Outcome of one element of a bulk request, {@code index} is its position in the request.
+ */
+public class BulkItemResult {
+
+    private int index;
+    private Long id;
+    private String error;
+
+    public static BulkItemResult created(int index, Long id) {
+        BulkItemResult result = new BulkItemResult();
+        result.index = index;
+        result.id = id;
+        return result;
+    }
+
+    public static BulkItemResult rejected(int index, String error) {
+        BulkItemResult result = new BulkItemResult();
+        result.index = index;
+        result.error = error;
+        return result;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isCreated() {
+        return error == null;
+    }
+}
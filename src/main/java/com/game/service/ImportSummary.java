@@ -0,0 +1,47 @@
+package com.game.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts of an import and the first rejected records with their reasons.
+ */
+public class ImportSummary {
+
+    private long accepted;
+    private long rejected;
+    private List<BulkItemResult> errors = new ArrayList<>();
+
+    @JsonIgnore
+    private int maxReportedErrors;
+
+    public ImportSummary(int maxReportedErrors) {
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public void add(BulkItemResult result) {
+        if (result.isCreated()) {
+            accepted++;
+        } else {
+            rejected++;
+
+            if (errors.size() < maxReportedErrors) {
+                errors.add(result);
+            }
+        }
+    }
+
+    public long getAccepted() {
+        return accepted;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public List<BulkItemResult> getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,143 @@
+package com.game.service;
+
+import com.game.engine.PlayerQueryEngine;
+import com.game.entity.Player;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Recomputes the stored level and untilNextLevel of every player from {@link LevelTable}, for when the
+ * leveling curve changes.
+ * <p>
+ * The id range is cut into chunks of {@code level.recalculation.chunkSize} ids that run in parallel on
+ * {@code level.recalculation.threads} threads, one transaction and one JDBC batch each. Only rows whose values change
+ * are written, and only while their experience is still the one that was read, so concurrent updates win.
+ */
+@Component
+public class LevelRecalculationJob {
+
+    private static final Logger log = LoggerFactory.getLogger(LevelRecalculationJob.class);
+
+    private static final String RANGE_SQL = "SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM player";
+    private static final String SELECT_SQL = "SELECT id, experience, level, untilNextLevel FROM player "
+            + "WHERE id BETWEEN ? AND ? AND experience IS NOT NULL";
+    private static final String UPDATE_SQL = "UPDATE player SET level = ?, untilNextLevel = ?, version = version + 1 "
+            + "WHERE id = ? AND experience = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final PlayerQueryEngine queryEngine;
+    private final LevelTable levelTable;
+    private final int threads;
+    private final int chunkSize;
+
+    private CompletableFuture<Long> running;
+
+    @Autowired
+    public LevelRecalculationJob(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                 EntityManagerFactory entityManagerFactory, PlayerQueryEngine queryEngine,
+                                 LevelTable levelTable,
+                                 @Value("${level.recalculation.threads:4}") int threads,
+                                 @Value("${level.recalculation.chunkSize:10000}") int chunkSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManagerFactory = entityManagerFactory;
+        this.queryEngine = queryEngine;
+        this.levelTable = levelTable;
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Starts a run in the background, or returns the one already in progress.
+     *
+     * @return completes with the number of updated players
+     */
+    public synchronized CompletableFuture<Long> start() {
+        if (running != null && !running.isDone()) {
+            return running;
+        }
+
+        Map<String, Object> range = jdbcTemplate.queryForMap(RANGE_SQL);
+        Number minId = (Number) range.get("min_id");
+        Number maxId = (Number) range.get("max_id");
+
+        if (minId == null) {
+            running = CompletableFuture.completedFuture(0L);
+            return running;
+        }
+
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<CompletableFuture<Integer>> chunks = new ArrayList<>();
+
+        for (long from = minId.longValue(); from <= maxId.longValue(); from += chunkSize) {
+            long chunkFrom = from;
+            long chunkTo = Math.min(from + chunkSize - 1, maxId.longValue());
+            chunks.add(CompletableFuture.supplyAsync(() -> recalculate(chunkFrom, chunkTo), executor));
+        }
+
+        running = CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0]))
+                .thenApply(done -> chunks.stream().mapToLong(CompletableFuture::join).sum())
+                .whenComplete((updated, error) -> {
+                    executor.shutdown();
+                    // the rows changed behind Hibernate and the in-memory engine
+                    entityManagerFactory.unwrap(SessionFactory.class).getCache().evictEntityData(Player.class);
+                    entityManagerFactory.unwrap(SessionFactory.class).getCache().evictDefaultQueryRegion();
+
+                    if (queryEngine.isEnabled()) {
+                        queryEngine.load();
+                    }
+
+                    if (error != null) {
+                        log.error("Level recalculation failed", error);
+                    } else {
+                        log.info("Level recalculation updated {} players in {} ms", updated, System.currentTimeMillis() - start);
+                    }
+                });
+
+        return running;
+    }
+
+    private int recalculate(long fromId, long toId) {
+        return transactionTemplate.execute(status -> {
+            List<Object[]> changed = new ArrayList<>();
+
+            jdbcTemplate.query(SELECT_SQL, resultSet -> {
+                int experience = resultSet.getInt("experience");
+                int level = levelTable.level(experience);
+                int untilNextLevel = levelTable.untilNextLevel(experience, level);
+
+                if (level != resultSet.getInt("level") || untilNextLevel != resultSet.getInt("untilNextLevel")) {
+                    changed.add(new Object[]{level, untilNextLevel, resultSet.getLong("id"), experience});
+                }
+            }, fromId, toId);
+
+            int updated = 0;
+            for (int count : jdbcTemplate.batchUpdate(UPDATE_SQL, changed)) {
+                // drivers that rewrite batches may not report per-row counts
+                updated += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+            }
+
+            return updated;
+        });
+    }
+}
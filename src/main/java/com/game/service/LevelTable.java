@@ -0,0 +1,72 @@
+package com.game.service;
+
+import com.game.entity.Player;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Experience thresholds of the leveling curve: level {@code L} starts at {@code factor * L * (L + 1)} experience.
+ * <p>
+ * With the default factor of 50 this is the curve of the former
+ * {@code (sqrt(2500 + 200 * experience) - 50) / 100} formula, but computed with exact integer lookups
+ * over every int experience and without the int overflow of {@code 200 * experience}.
+ */
+@Component
+public class LevelTable {
+
+    private final int factor;
+    private final long[] thresholds;
+
+    public LevelTable(@Value("${level.factor:50}") int factor) {
+        if (factor < 1) {
+            throw new IllegalArgumentException("level.factor must be positive");
+        }
+
+        this.factor = factor;
+
+        // one entry past the level reached at Integer.MAX_VALUE, about 6.5k entries for the default factor
+        int levels = 1;
+        while (threshold(levels - 1) <= Integer.MAX_VALUE) {
+            levels++;
+        }
+
+        thresholds = new long[levels];
+        for (int level = 0; level < levels; level++) {
+            thresholds[level] = threshold(level);
+        }
+    }
+
+    public int getFactor() {
+        return factor;
+    }
+
+    private long threshold(long level) {
+        return factor * level * (level + 1);
+    }
+
+    public int level(int experience) {
+        if (experience <= 0) {
+            return 0;
+        }
+
+        int index = Arrays.binarySearch(thresholds, experience);
+
+        // an exact hit starts that level, otherwise the insertion point is one past the reached level
+        return index >= 0 ? index : -index - 2;
+    }
+
+    public int untilNextLevel(int experience, int level) {
+        return (int) (thresholds[level + 1] - experience);
+    }
+
+    /**
+     * Sets level and untilNextLevel from the player's experience with a single lookup.
+     */
+    public void apply(Player player) {
+        int level = level(player.getExperience());
+        player.setLevel(level);
+        player.setUntilNextLevel(untilNextLevel(player.getExperience(), level));
+    }
+}
@@ -0,0 +1,198 @@
+package com.game.service;
+
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Player counts per race, profession and banned in the player_count table, so that counts filtered on
+ * nothing else are read from at most {@code races * professions * 2} rows instead of scanning player.
+ * <p>
+ * Every write path adjusts the counts in its own transaction. Stored players are read with a row lock before they are
+ * uncounted, so of two concurrent deletes of the same row only the one that removes it decrements. Count rows are
+ * always updated in the same order, whatever the order of the players written. Writes that bypass
+ * the service can still leave a count off, which the scheduled {@link #reconcile()} recomputes from player.
+ * Players without race, profession or banned are not counted; the service never stores such rows.
+ */
+@Component
+public class PlayerCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(PlayerCounters.class);
+
+    private static final String INCREMENT_SQL = "UPDATE player_count SET players = players + ? "
+            + "WHERE race = ? AND profession = ? AND banned = ?";
+    private static final String INSERT_SQL = "INSERT INTO player_count(race, profession, banned, players) VALUES (?, ?, ?, ?)";
+    // locking read, grouped in Java since FOR UPDATE isn't allowed on a grouped select in H2
+    private static final String STORED_SQL = "SELECT race, profession, banned FROM player "
+            + "WHERE id IN (:ids) AND race IS NOT NULL AND profession IS NOT NULL AND banned IS NOT NULL FOR UPDATE";
+    private static final String INSERT_MISSING_SQL = "INSERT INTO player_count(race, profession, banned, players) "
+            + "SELECT DISTINCT race, profession, banned, 0 FROM player p "
+            + "WHERE race IS NOT NULL AND profession IS NOT NULL AND banned IS NOT NULL AND NOT EXISTS ("
+            + "SELECT 1 FROM player_count c WHERE c.race = p.race AND c.profession = p.profession AND c.banned = p.banned)";
+    private static final String RECONCILE_SQL = "UPDATE player_count SET players = (SELECT COUNT(*) FROM player "
+            + "WHERE player.race = player_count.race AND player.profession = player_count.profession "
+            + "AND player.banned = player_count.banned)";
+
+    // the one order every write locks count rows in, so two writes touching the same rows can't deadlock
+    private static final Comparator<Object[]> LOCK_ORDER = Comparator.<Object[], String>comparing(row -> (String) row[1])
+            .thenComparing(row -> (String) row[2])
+            .thenComparing(row -> (Boolean) row[3]);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    public PlayerCounters(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    public boolean supports(PlayerCriteria criteria) {
+        return criteria.getName() == null && criteria.getTitle() == null
+                && criteria.getAfter() == null && criteria.getBefore() == null
+                && criteria.getMinExperience() == null && criteria.getMaxExperience() == null
+                && criteria.getMinLevel() == null && criteria.getMaxLevel() == null;
+    }
+
+    public long count(PlayerCriteria criteria) {
+        StringBuilder sql = new StringBuilder("SELECT COALESCE(SUM(players), 0) FROM player_count WHERE 1 = 1");
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+
+        if (criteria.getRace() != null) {
+            sql.append(" AND race = :race");
+            parameters.addValue("race", criteria.getRace().name());
+        }
+
+        if (criteria.getProfession() != null) {
+            sql.append(" AND profession = :profession");
+            parameters.addValue("profession", criteria.getProfession().name());
+        }
+
+        if (criteria.getBanned() != null) {
+            sql.append(" AND banned = :banned");
+            parameters.addValue("banned", criteria.getBanned());
+        }
+
+        return namedJdbcTemplate.queryForObject(sql.toString(), parameters, Long.class);
+    }
+
+    /**
+     * Counts players inserted in the current transaction.
+     */
+    public void added(Collection<Player> players) {
+        Map<List<Object>, Long> deltas = new LinkedHashMap<>();
+
+        for (Player player : players) {
+            deltas.merge(key(player.getRace(), player.getProfession(), player.getBanned()), 1L, Long::sum);
+        }
+
+        apply(deltas);
+    }
+
+    /**
+     * Moves one player between counts when an update changed race, profession or banned.
+     */
+    public void changed(Race oldRace, Profession oldProfession, Boolean oldBanned, Player player) {
+        List<Object> oldKey = key(oldRace, oldProfession, oldBanned);
+        List<Object> newKey = key(player.getRace(), player.getProfession(), player.getBanned());
+
+        if (Objects.equals(oldKey, newKey)) {
+            return;
+        }
+
+        Map<List<Object>, Long> deltas = new LinkedHashMap<>();
+        deltas.put(oldKey, -1L);
+        deltas.put(newKey, 1L);
+        apply(deltas);
+    }
+
+    /**
+     * Counts the stored players with these ids, for after a bulk update wrote them.
+     */
+    public void storedAdded(Collection<Long> ids) {
+        apply(storedCounts(ids, 1));
+    }
+
+    /**
+     * Uncounts the stored players with these ids, for before they are deleted or bulk updated.
+     * Locks their rows until the current transaction ends, so it must run in the one that writes them.
+     */
+    public void storedRemoving(Collection<Long> ids) {
+        apply(storedCounts(ids, -1));
+    }
+
+    private Map<List<Object>, Long> storedCounts(Collection<Long> ids, int sign) {
+        Map<List<Object>, Long> deltas = new LinkedHashMap<>();
+
+        if (ids.isEmpty()) {
+            return deltas;
+        }
+
+        namedJdbcTemplate.query(STORED_SQL, new MapSqlParameterSource("ids", ids), resultSet -> {
+            deltas.merge(key(Race.valueOf(resultSet.getString("race")), Profession.valueOf(resultSet.getString("profession")),
+                    resultSet.getBoolean("banned")), (long) sign, Long::sum);
+        });
+
+        return deltas;
+    }
+
+    // one JDBC batch for all keys, however many the write touched, in LOCK_ORDER
+    private void apply(Map<List<Object>, Long> deltas) {
+        List<Object[]> rows = new ArrayList<>();
+
+        deltas.forEach((key, delta) -> {
+            if (!key.contains(null) && delta != 0) {
+                rows.add(new Object[]{delta, key.get(0), key.get(1), key.get(2)});
+            }
+        });
+
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        rows.sort(LOCK_ORDER);
+        int[] counts = jdbcTemplate.batchUpdate(INCREMENT_SQL, rows);
+
+        // rows exist for every value known to V3, only a newly added enum value gets inserted here
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                Object[] row = rows.get(i);
+                jdbcTemplate.update(INSERT_SQL, row[1], row[2], row[3], Math.max((Long) row[0], 0));
+            }
+        }
+    }
+
+    private static List<Object> key(Race race, Profession profession, Boolean banned) {
+        return Arrays.asList(race == null ? null : race.name(), profession == null ? null : profession.name(), banned);
+    }
+
+    /**
+     * Recomputes every count from the player table.
+     */
+    @Scheduled(initialDelayString = "${counters.reconciliation.delay:600000}",
+            fixedDelayString = "${counters.reconciliation.delay:600000}")
+    public void reconcile() {
+        long start = System.currentTimeMillis();
+        jdbcTemplate.update(INSERT_MISSING_SQL);
+        jdbcTemplate.update(RECONCILE_SQL);
+        log.info("Reconciled player counts in {} ms", System.currentTimeMillis() - start);
+    }
+}
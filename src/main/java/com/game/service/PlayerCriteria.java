@@ -0,0 +1,181 @@
+package com.game.service;
+
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Filter parameters shared by the list, count and other query endpoints.
+ * Bound straight from the request parameters of the same name.
+ */
+public class PlayerCriteria {
+
+    private String name;
+    private String title;
+    private Race race;
+    private Profession profession;
+    private Long after;
+    private Long before;
+    private Boolean banned;
+    private Integer minExperience;
+    private Integer maxExperience;
+    private Integer minLevel;
+    private Integer maxLevel;
+
+    public Specification<Player> toSpecification() {
+        return Specification.where(
+                PlayerFilters.nameFilter(name)
+                        .and(PlayerFilters.titleFilter(title)))
+                .and(PlayerFilters.raceFilter(race))
+                .and(PlayerFilters.professionFilter(profession))
+                .and(PlayerFilters.birthdayFilter(after, before))
+                .and(PlayerFilters.bannedFilter(banned))
+                .and(PlayerFilters.experienceFilter(minExperience, maxExperience))
+                .and(PlayerFilters.levelFilter(minLevel, maxLevel));
+    }
+
+    /**
+     * The same filters as {@link #toSpecification()} as a native SQL condition on the player table, for queries
+     * JPA criteria can't express. Parameter values are added to {@code parameters}.
+     */
+    public String toSqlCondition(Map<String, Object> parameters) {
+        StringBuilder sql = new StringBuilder("1 = 1");
+
+        appendSubstring(sql, parameters, PlayerSearchIndex.NAME, name);
+        appendSubstring(sql, parameters, PlayerSearchIndex.TITLE, title);
+        append(sql, parameters, "race = :race", "race", race == null ? null : race.name());
+        append(sql, parameters, "profession = :profession", "profession", profession == null ? null : profession.name());
+        append(sql, parameters, "birthday >= :after", "after", after == null ? null : new Date(after));
+        append(sql, parameters, "birthday <= :before", "before", before == null ? null : new Date(before));
+        append(sql, parameters, "banned = :banned", "banned", banned);
+        append(sql, parameters, "experience >= :minExperience", "minExperience", minExperience);
+        append(sql, parameters, "experience <= :maxExperience", "maxExperience", maxExperience);
+        append(sql, parameters, "level >= :minLevel", "minLevel", minLevel);
+        append(sql, parameters, "level <= :maxLevel", "maxLevel", maxLevel);
+
+        return sql.toString();
+    }
+
+    private static void append(StringBuilder sql, Map<String, Object> parameters, String condition, String parameter, Object value) {
+        if (value != null) {
+            sql.append(" AND ").append(condition);
+            parameters.put(parameter, value);
+        }
+    }
+
+    // trigram prefilter and LIKE recheck, like PlayerFilters.substringFilter
+    private static void appendSubstring(StringBuilder sql, Map<String, Object> parameters, String field, String value) {
+        if (value == null) {
+            return;
+        }
+
+        int i = 0;
+        for (String gram : PlayerSearchIndex.searchNgrams(value)) {
+            String parameter = field + "Gram" + i++;
+            sql.append(" AND id IN (SELECT player_id FROM player_ngram WHERE field = '").append(field)
+                    .append("' AND gram = :").append(parameter).append(")");
+            parameters.put(parameter, gram);
+        }
+
+        append(sql, parameters, field + " LIKE :" + field, field, "%" + value + "%");
+    }
+
+    public boolean isEmpty() {
+        return name == null && title == null && race == null && profession == null
+                && after == null && before == null && banned == null
+                && minExperience == null && maxExperience == null
+                && minLevel == null && maxLevel == null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public Race getRace() {
+        return race;
+    }
+
+    public void setRace(Race race) {
+        this.race = race;
+    }
+
+    public Profession getProfession() {
+        return profession;
+    }
+
+    public void setProfession(Profession profession) {
+        this.profession = profession;
+    }
+
+    public Long getAfter() {
+        return after;
+    }
+
+    public void setAfter(Long after) {
+        this.after = after;
+    }
+
+    public Long getBefore() {
+        return before;
+    }
+
+    public void setBefore(Long before) {
+        this.before = before;
+    }
+
+    public Boolean getBanned() {
+        return banned;
+    }
+
+    public void setBanned(Boolean banned) {
+        this.banned = banned;
+    }
+
+    public Integer getMinExperience() {
+        return minExperience;
+    }
+
+    public void setMinExperience(Integer minExperience) {
+        this.minExperience = minExperience;
+    }
+
+    public Integer getMaxExperience() {
+        return maxExperience;
+    }
+
+    public void setMaxExperience(Integer maxExperience) {
+        this.maxExperience = maxExperience;
+    }
+
+    public Integer getMinLevel() {
+        return minLevel;
+    }
+
+    public void setMinLevel(Integer minLevel) {
+        this.minLevel = minLevel;
+    }
+
+    public Integer getMaxLevel() {
+        return maxLevel;
+    }
+
+    public void setMaxLevel(Integer maxLevel) {
+        this.maxLevel = maxLevel;
+    }
+}
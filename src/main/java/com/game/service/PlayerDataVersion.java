@@ -0,0 +1,65 @@
+package com.game.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the player data as a whole, for the list, count and statistics ETags. Reading it never touches
+ * the database, so a 304 costs no query.
+ * <p>
+ * Each instance counts its own committed writes in memory and changes its tag right away. The single row of
+ * data_version is only there so that instances learn about each other's writes: {@link #sync()} publishes the
+ * local writes with one UPDATE and reads back the shared version every {@code data.version.syncDelay} ms. Until then
+ * another instance may answer 304 for data that changed, and tags with unpublished writes carry a per-instance part
+ * so that two instances never hand out the same tag for different data.
+ */
+@Component
+public class PlayerDataVersion {
+
+    private static final String BUMP_SQL = "UPDATE data_version SET version = version + 1 WHERE id = 1";
+    private static final String GET_SQL = "SELECT version FROM data_version WHERE id = 1";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String instance = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final AtomicLong unpublished = new AtomicLong();
+    private volatile long shared;
+
+    @Autowired
+    public PlayerDataVersion(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.shared = jdbcTemplate.queryForObject(GET_SQL, Long.class);
+    }
+
+    /**
+     * Call once a write has committed.
+     */
+    public void changed() {
+        unpublished.incrementAndGet();
+    }
+
+    public String get() {
+        // unpublished first: sync() raises shared before it lowers unpublished, so the tag never goes back to an old one
+        long writes = unpublished.get();
+        long version = shared;
+
+        return writes == 0 ? String.valueOf(version) : version + "-" + instance + "-" + writes;
+    }
+
+    @Scheduled(initialDelayString = "${data.version.syncDelay:1000}", fixedDelayString = "${data.version.syncDelay:1000}")
+    public synchronized void sync() {
+        long writes = unpublished.get();
+
+        if (writes > 0) {
+            jdbcTemplate.update(BUMP_SQL);
+        }
+
+        shared = Math.max(shared, jdbcTemplate.queryForObject(GET_SQL, Long.class));
+        unpublished.addAndGet(-writes);
+    }
+}
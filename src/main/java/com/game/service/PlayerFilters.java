@@ -1,20 +1,48 @@
 package com.game.service;
 
 import com.game.entity.Player;
+import com.game.entity.PlayerNgram;
 import com.game.entity.Profession;
 import com.game.entity.Race;
 import org.springframework.data.jpa.domain.Specification;
 
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 public class PlayerFilters {
 
     public static Specification<Player> nameFilter(String name) {
-        return (root, query, criteriaBuilder) -> name == null ? null : criteriaBuilder.like(root.get("name"), "%" + name + "%");
+        return (root, query, criteriaBuilder) -> name == null ? null : substringFilter(root, query, criteriaBuilder, PlayerSearchIndex.NAME, name);
     }
 
     public static Specification<Player> titleFilter(String title) {
-        return (root, query, criteriaBuilder) -> title == null ? null : criteriaBuilder.like(root.get("title"), "%" + title + "%");
+        return (root, query, criteriaBuilder) -> title == null ? null : substringFilter(root, query, criteriaBuilder, PlayerSearchIndex.TITLE, title);
+    }
+
+    // every gram of the pattern has to be in player_ngram for the row, then LIKE rechecks the candidates
+    private static Predicate substringFilter(Root<Player> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder,
+                                             String field, String value) {
+        List<Predicate> predicates = new ArrayList<>();
+
+        for (String gram : PlayerSearchIndex.searchNgrams(value)) {
+            Subquery<Long> subquery = query.subquery(Long.class);
+            Root<PlayerNgram> ngram = subquery.from(PlayerNgram.class);
+            subquery.select(ngram.get("playerId"))
+                    .where(criteriaBuilder.equal(ngram.get("field"), field),
+                            criteriaBuilder.equal(ngram.get("gram"), gram));
+
+            predicates.add(root.get("id").in(subquery));
+        }
+
+        predicates.add(criteriaBuilder.like(root.get(field), "%" + value + "%"));
+
+        return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
     }
 
     public static Specification<Player> raceFilter(Race race) {
@@ -92,4 +120,16 @@ public class PlayerFilters {
             return criteriaBuilder.between(root.get("level"), minLevel, maxLevel);
         };
     }
+
+    public static Specification<Player> seekFilter(Long lastId) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.greaterThan(root.get("id"), lastId);
+    }
+
+    public static <T extends Comparable<? super T>> Specification<Player> seekFilter(String field, T lastKey, Long lastId) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.or(
+                criteriaBuilder.greaterThan(root.get(field), lastKey),
+                criteriaBuilder.and(
+                        criteriaBuilder.equal(root.get(field), lastKey),
+                        criteriaBuilder.greaterThan(root.get("id"), lastId)));
+    }
 }
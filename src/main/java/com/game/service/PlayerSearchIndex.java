@@ -0,0 +1,127 @@
+package com.game.service;
+
+import com.game.entity.Player;
+import com.game.entity.PlayerNgram;
+import org.hibernate.Session;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Trigram index over player name and title kept in the player_ngram table.
+ * <p>
+ * Grams are lowercased, so the index only narrows down candidates and the LIKE check
+ * still decides the final result with the column's own case rules.
+ * Rows go away together with the player through ON DELETE CASCADE.
+ */
+@Component
+public class PlayerSearchIndex {
+
+    public static final int GRAM_LENGTH = 3;
+
+    public static final String NAME = "name";
+    public static final String TITLE = "title";
+
+    private static final String INSERT_SQL = "INSERT INTO player_ngram(player_id, field, gram) VALUES (?, ?, ?)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Distinct grams of a stored value.
+     */
+    public static Set<String> ngrams(String value) {
+        Set<String> grams = new LinkedHashSet<>();
+
+        if (value == null) {
+            return grams;
+        }
+
+        String lower = value.toLowerCase(Locale.ROOT);
+        for (int i = 0; i + GRAM_LENGTH <= lower.length(); i++) {
+            grams.add(lower.substring(i, i + GRAM_LENGTH));
+        }
+
+        return grams;
+    }
+
+    /**
+     * Grams every match of a LIKE pattern must contain. Wildcards and the escape character split the pattern,
+     * so only literal runs produce grams; an empty set means the index can't help.
+     */
+    public static Set<String> searchNgrams(String pattern) {
+        Set<String> grams = new LinkedHashSet<>();
+
+        for (String literal : pattern.split("[%_\\\\]")) {
+            grams.addAll(ngrams(literal));
+        }
+
+        return grams;
+    }
+
+    /**
+     * Grams of players inserted in the same transaction, written as one JDBC batch.
+     */
+    public void indexNew(List<Player> players) {
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                for (Player player : players) {
+                    addGrams(statement, player.getId(), NAME, player.getName());
+                    addGrams(statement, player.getId(), TITLE, player.getTitle());
+                }
+
+                statement.executeBatch();
+            }
+        });
+    }
+
+    /**
+     * Replaces the grams of one field for players that all got the same new value.
+     */
+    public void indexField(List<Long> playerIds, String field, String value) {
+        entityManager.createQuery("delete from PlayerNgram n where n.field = :field and n.playerId in :ids")
+                .setParameter("field", field)
+                .setParameter("ids", playerIds)
+                .executeUpdate();
+
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                for (Long playerId : playerIds) {
+                    addGrams(statement, playerId, field, value);
+                }
+
+                statement.executeBatch();
+            }
+        });
+    }
+
+    private static void addGrams(PreparedStatement statement, Long playerId, String field, String value) throws SQLException {
+        for (String gram : ngrams(value)) {
+            statement.setLong(1, playerId);
+            statement.setString(2, field);
+            statement.setString(3, gram);
+            statement.addBatch();
+        }
+    }
+
+    public void index(Player player) {
+        entityManager.createQuery("delete from PlayerNgram n where n.playerId = :id")
+                .setParameter("id", player.getId())
+                .executeUpdate();
+
+        for (String gram : ngrams(player.getName())) {
+            entityManager.persist(new PlayerNgram(player.getId(), NAME, gram));
+        }
+
+        for (String gram : ngrams(player.getTitle())) {
+            entityManager.persist(new PlayerNgram(player.getId(), TITLE, gram));
+        }
+    }
+}
@@ -3,20 +3,89 @@ package com.game.service;
 import com.game.entity.Player;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public interface PlayerService {
-    List<Player> getCount(Specification<Player> specification);
+    long getCount(PlayerCriteria criteria);
 
-    Page<Player> getAllPlayers(Specification<Player> specification, Pageable sortedByName);
+    Page<Player> getAllPlayers(PlayerCriteria criteria, Pageable sortedByName);
+
+    Slice<Player> getPlayersSlice(Specification<Player> specification, Pageable pageable);
+
+    /**
+     * Only the given player attributes of the matching page, see {@link com.game.repository.PlayerRepositoryCustom#findFields}.
+     */
+    Slice<Map<String, Object>> getPlayerFields(Specification<Player> specification, List<String> fields, Pageable pageable);
+
+    /**
+     * Hands every matching player to the consumer in the given order without holding the result in memory.
+     */
+    void exportPlayers(PlayerCriteria criteria, Sort sort, Consumer<Player> consumer);
+
+    /**
+     * Breakdowns of the players matching the criteria by race, profession, banned and level, and experience per race.
+     * Each breakdown is one GROUP BY query; the medians of all races come from one more window function query.
+     */
+    PlayerStatistics getStatistics(PlayerCriteria criteria);
 
     Player createPlayer(Player player);
 
+    /**
+     * Validates every player like {@link #createPlayer(Player)} and inserts the valid ones in batches,
+     * one transaction per batch.
+     *
+     * @return one result per element, in request order
+     */
+    List<BulkItemResult> createPlayers(List<Player> players);
+
+    /**
+     * Same as {@link #createPlayers(List)} for a stream of players. The iterator is consumed one batch at a time
+     * and may throw {@link com.game.exceptions.BadRequestException} for a record it can't read, which rejects
+     * just that record.
+     */
+    ImportSummary importPlayers(Iterator<Player> players);
+
     Player updatePlayer(String id, Player player);
 
+    /**
+     * Applies the non-null fields of the patch to every player matching the criteria,
+     * in chunks of one UPDATE statement and one transaction each.
+     *
+     * @return number of updated players
+     */
+    long updatePlayers(PlayerCriteria criteria, Player patch);
+
     Player getPlayer(String id);
 
+    /**
+     * Recomputes level and untilNextLevel of every player in the background, see {@link LevelRecalculationJob}.
+     *
+     * @return completes with the number of updated players
+     */
+    CompletableFuture<Long> recalculateLevels();
+
     void deletePlayer(String id);
+
+    /**
+     * Deletes the players with the given ids, or when there are none every player matching the criteria,
+     * in chunks of one DELETE statement and one transaction each. Entities are never loaded.
+     * Ids together with criteria are rejected rather than silently ignoring the criteria.
+     *
+     * @return number of deleted players
+     */
+    long deletePlayers(List<Long> ids, PlayerCriteria criteria);
+
+    /**
+     * Changes with every committed write, so it can tag list and count responses. Read from memory, see
+     * {@link PlayerDataVersion} for how writes of other instances get in.
+     */
+    String getDataVersion();
 }
@@ -1,52 +1,81 @@
 package com.game.service;
 
+import com.game.engine.PlayerQueryEngine;
 import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
 import com.game.exceptions.BadRequestException;
 import com.game.exceptions.PlayerNotFoundException;
 import com.game.repository.PlayerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
-
-import java.util.Calendar;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.PersistenceException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 
 @Service
 public class PlayerServiceImpl implements PlayerService {
 
+    private static final Logger log = LoggerFactory.getLogger(PlayerServiceImpl.class);
+
     private PlayerRepository playerRepository;
+    private PlayerSearchIndex searchIndex;
+    private PlayerQueryEngine queryEngine;
+    private PlayerCounters counters;
+    private PlayerDataVersion dataVersion;
+    private PlayerValidator validator;
+    private LevelTable levelTable;
+    private LevelRecalculationJob levelRecalculationJob;
+    private TransactionTemplate transactionTemplate;
+    private int bulkBatchSize;
+    private int bulkChunkSize;
+    private int exportFetchSize;
+    private int importMaxReportedErrors;
 
     @Autowired
-    public PlayerServiceImpl(PlayerRepository playerRepository) {
+    public PlayerServiceImpl(PlayerRepository playerRepository, PlayerSearchIndex searchIndex, PlayerQueryEngine queryEngine,
+                             PlayerCounters counters, PlayerDataVersion dataVersion, PlayerValidator validator, LevelTable levelTable,
+                             LevelRecalculationJob levelRecalculationJob,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${bulk.batchSize:500}") int bulkBatchSize,
+                             @Value("${bulk.chunkSize:1000}") int bulkChunkSize,
+                             @Value("${export.fetchSize:1000}") int exportFetchSize,
+                             @Value("${import.maxReportedErrors:1000}") int importMaxReportedErrors) {
         this.playerRepository = playerRepository;
-    }
-
-    private void validateFields(Player player) {
-
-        if (player.getName() != null && (player.getName().length() < 1 || player.getName().length() > 12)) {
-            throw new BadRequestException("Character name is too long or missing.");
-        }
-
-        if (player.getTitle() != null && (player.getTitle().length() < 1 || player.getTitle().length() > 30)) {
-            throw new BadRequestException("Character title is too long or missing.");
-        }
-
-        if (player.getExperience() != null && (player.getExperience() < 1 || player.getExperience() > 10000000)) {
-            throw new BadRequestException("Character experience out of range.");
-        }
-
-        if (player.getBirthday() != null) {
-            Calendar date = Calendar.getInstance();
-            date.setTime(player.getBirthday());
-
-            if (date.get(Calendar.YEAR) < 2000 || date.get(Calendar.YEAR) > 3000) {
-                throw new BadRequestException("Registration date out of range.");
-            }
-        }
+        this.searchIndex = searchIndex;
+        this.queryEngine = queryEngine;
+        this.counters = counters;
+        this.dataVersion = dataVersion;
+        this.validator = validator;
+        this.levelTable = levelTable;
+        this.levelRecalculationJob = levelRecalculationJob;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.bulkBatchSize = bulkBatchSize;
+        this.bulkChunkSize = bulkChunkSize;
+        this.exportFetchSize = exportFetchSize;
+        this.importMaxReportedErrors = importMaxReportedErrors;
     }
 
     public Long validateId(String id) {
@@ -63,27 +92,39 @@ public class PlayerServiceImpl implements PlayerService {
         }
     }
 
-    private Integer calculateCurrentLevel(Player player) {
-        return (int) ((Math.sqrt(2500 + 200 * player.getExperience())) - 50) / 100;
-    }
+    @Override
+    public long getCount(PlayerCriteria criteria) {
+        if (counters.supports(criteria)) {
+            return counters.count(criteria);
+        }
 
-    private Integer calculateUntilNextLevel(Player player) {
-        return 50 * (calculateCurrentLevel(player) + 1) * (calculateCurrentLevel(player) + 2) - player.getExperience();
+        if (queryEngine.supports(criteria)) {
+            return queryEngine.count(criteria);
+        }
 
+        return playerRepository.count(criteria.toSpecification());
     }
 
     @Override
-    public List<Player> getCount(Specification<Player> specification) {
-        return playerRepository.findAll(specification);
+    public Page<Player> getAllPlayers(PlayerCriteria criteria, Pageable sortedByName) {
+        if (queryEngine.supports(criteria, sortedByName)) {
+            return queryEngine.findAll(criteria, sortedByName);
+        }
+
+        return playerRepository.findAll(criteria.toSpecification(), sortedByName);
     }
 
     @Override
-    public Page<Player> getAllPlayers(Specification<Player> specification, Pageable sortedByName) {
-        return playerRepository.findAll(specification, sortedByName);
+    public Slice<Player> getPlayersSlice(Specification<Player> specification, Pageable pageable) {
+        return playerRepository.findSlice(specification, pageable);
     }
 
     @Override
-    public Player createPlayer(Player player) {
+    public Slice<Map<String, Object>> getPlayerFields(Specification<Player> specification, List<String> fields, Pageable pageable) {
+        return playerRepository.findFields(specification, fields, pageable);
+    }
+
+    private void prepareNewPlayer(Player player) {
         if (player.getName() == null
                 || player.getTitle() == null
                 || player.getRace() == null
@@ -92,55 +133,256 @@ public class PlayerServiceImpl implements PlayerService {
                 || player.getExperience() == null)
             throw new BadRequestException("Please fill in all required fields");
 
-        validateFields(player);
+        validator.validate(player);
 
         if (player.getBanned() == null)
             player.setBanned(false);
 
-        player.setLevel(calculateCurrentLevel(player));
-        player.setUntilNextLevel(calculateUntilNextLevel(player));
+        levelTable.apply(player);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportPlayers(PlayerCriteria criteria, Sort sort, Consumer<Player> consumer) {
+        playerRepository.scrollAll(criteria.toSpecification(), sort, exportFetchSize, consumer);
+    }
 
-        return playerRepository.saveAndFlush(player);
+    @Override
+    @Transactional(readOnly = true)
+    public PlayerStatistics getStatistics(PlayerCriteria criteria) {
+        Specification<Player> specification = criteria.toSpecification();
+        PlayerStatistics statistics = new PlayerStatistics();
+
+        statistics.setTotal(playerRepository.count(specification));
+        statistics.getByRace().putAll(playerRepository.<Race>countBy(specification, "race"));
+        statistics.getByProfession().putAll(playerRepository.<Profession>countBy(specification, "profession"));
+        statistics.getByBanned().putAll(playerRepository.<Boolean>countBy(specification, "banned"));
+        statistics.getByLevel().putAll(playerRepository.<Integer>countBy(specification, "level"));
+
+        Map<Race, Long> sums = playerRepository.sumBy(specification, "race", "experience");
+        Map<Race, Double> medians = playerRepository.medianExperienceByRace(criteria);
+        statistics.getByRace().forEach((race, count) -> statistics.getExperienceByRace().put(race,
+                new PlayerStatistics.Experience((double) sums.get(race) / count, medians.getOrDefault(race, 0.0))));
+
+        return statistics;
     }
 
     @Override
+    @Transactional
+    public Player createPlayer(Player player) {
+        prepareNewPlayer(player);
+
+        Player saved = playerRepository.saveAndFlush(player);
+        searchIndex.index(saved);
+        counters.added(Collections.singletonList(saved));
+        Transactions.afterCommit(() -> queryEngine.saved(Collections.singletonList(saved)));
+        Transactions.afterCommit(dataVersion::changed);
+
+        return saved;
+    }
+
+    @Override
+    public List<BulkItemResult> createPlayers(List<Player> players) {
+        BulkItemResult[] results = new BulkItemResult[players.size()];
+        insertAll(players.iterator(), result -> results[result.getIndex()] = result);
+
+        return Arrays.asList(results);
+    }
+
+    @Override
+    public ImportSummary importPlayers(Iterator<Player> players) {
+        ImportSummary summary = new ImportSummary(importMaxReportedErrors);
+        insertAll(players, summary::add);
+
+        return summary;
+    }
+
+    // at most one batch of players is held at a time, the iterator is only advanced once the previous batch is written
+    private void insertAll(Iterator<Player> players, Consumer<BulkItemResult> results) {
+        List<Player> batch = new ArrayList<>(bulkBatchSize);
+        List<Integer> batchIndexes = new ArrayList<>(bulkBatchSize);
+
+        for (int i = 0; players.hasNext(); i++) {
+            try {
+                Player player = players.next();
+
+                if (player == null) {
+                    throw new BadRequestException("Please fill in all required fields");
+                }
+
+                prepareNewPlayer(player);
+                batch.add(player);
+                batchIndexes.add(i);
+            } catch (BadRequestException e) {
+                results.accept(BulkItemResult.rejected(i, e.getMessage()));
+                continue;
+            }
+
+            if (batch.size() == bulkBatchSize) {
+                insertBatch(batch, batchIndexes, results);
+            }
+        }
+
+        insertBatch(batch, batchIndexes, results);
+    }
+
+    private void insertBatch(List<Player> batch, List<Integer> batchIndexes, Consumer<BulkItemResult> results) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                playerRepository.insertAll(batch);
+                searchIndex.indexNew(batch);
+                counters.added(batch);
+                Transactions.afterCommit(() -> queryEngine.saved(batch));
+                Transactions.afterCommit(dataVersion::changed);
+            });
+
+            for (int i = 0; i < batch.size(); i++) {
+                results.accept(BulkItemResult.created(batchIndexes.get(i), batch.get(i).getId()));
+            }
+        } catch (DataAccessException | PersistenceException e) {
+            // the batch is rolled back as a whole, earlier batches stay committed
+            log.warn("Bulk insert of {} players failed", batch.size(), e);
+            for (Integer index : batchIndexes) {
+                results.accept(BulkItemResult.rejected(index, "Player could not be saved."));
+            }
+        }
+
+        batch.clear();
+        batchIndexes.clear();
+    }
+
+    @Override
+    @Transactional
     public Player updatePlayer(String idString, Player player) {
         Long id = validateId(idString);
 
-        if (!playerRepository.existsById(id)) {
-            throw new PlayerNotFoundException("Player is not found.");
-        } else {
-            Player editablePlayer = playerRepository.findById(id).get();
-
-            if (player.getName() == null
-                    && player.getTitle() == null
-                    && player.getRace() == null
-                    && player.getProfession() == null
-                    && player.getBirthday() == null
-                    && player.getBanned() == null
-                    && player.getExperience() == null) {
-                return editablePlayer;
-            } else {
-
-                if ((player.getName() != null && (player.getName().length() < 1 || player.getName().length() > 12))
-                        || (player.getTitle() != null && (player.getTitle().length() < 1 || player.getTitle().length() > 30))
-                        || (player.getExperience() != null && (player.getExperience() < 1 || player.getExperience() > 10000000))
-                        || (player.getBirthday() != null && (player.getBirthday().getYear() + 1900 < 2000 || player.getBirthday().getYear() + 1900 > 3000))) {
-                    throw new BadRequestException("Invalid fields.");
+        Player editablePlayer = playerRepository.findById(id)
+                .orElseThrow(() -> new PlayerNotFoundException("Player is not found."));
+
+        if (player.getName() == null
+                && player.getTitle() == null
+                && player.getRace() == null
+                && player.getProfession() == null
+                && player.getBirthday() == null
+                && player.getBanned() == null
+                && player.getExperience() == null) {
+            return editablePlayer;
+        }
+
+        Race oldRace = editablePlayer.getRace();
+        Profession oldProfession = editablePlayer.getProfession();
+        Boolean oldBanned = editablePlayer.getBanned();
+
+        if ((player.getName() != null && (player.getName().length() < 1 || player.getName().length() > 12))
+                || (player.getTitle() != null && (player.getTitle().length() < 1 || player.getTitle().length() > 30))
+                || (player.getExperience() != null && (player.getExperience() < 1 || player.getExperience() > 10000000))
+                || (player.getBirthday() != null && (player.getBirthday().getYear() + 1900 < 2000 || player.getBirthday().getYear() + 1900 > 3000))) {
+            throw new BadRequestException("Invalid fields.");
+        }
+
+        Optional.ofNullable(player.getName()).ifPresent(editablePlayer::setName);
+        Optional.ofNullable(player.getTitle()).ifPresent(editablePlayer::setTitle);
+        Optional.ofNullable(player.getRace()).ifPresent(editablePlayer::setRace);
+        Optional.ofNullable(player.getProfession()).ifPresent(editablePlayer::setProfession);
+        Optional.ofNullable(player.getBirthday()).ifPresent(editablePlayer::setBirthday);
+        Optional.ofNullable(player.getBanned()).ifPresent(editablePlayer::setBanned);
+        Optional.ofNullable(player.getExperience()).ifPresent(editablePlayer::setExperience);
+
+        if (player.getName() != null || player.getTitle() != null) {
+            searchIndex.index(editablePlayer);
+        }
+
+        levelTable.apply(editablePlayer);
+        counters.changed(oldRace, oldProfession, oldBanned, editablePlayer);
+        Transactions.afterCommit(() -> queryEngine.saved(Collections.singletonList(editablePlayer)));
+        Transactions.afterCommit(dataVersion::changed);
+
+        // managed entity, the UPDATE is flushed on commit
+        return editablePlayer;
+    }
+
+    @Override
+    public long updatePlayers(PlayerCriteria criteria, Player patch) {
+        if (criteria.isEmpty()) {
+            throw new BadRequestException("Specify at least one filter.");
+        }
+
+        validator.validate(patch);
+
+        Map<String, Object> values = new LinkedHashMap<>();
+        Optional.ofNullable(patch.getName()).ifPresent(name -> values.put("name", name));
+        Optional.ofNullable(patch.getTitle()).ifPresent(title -> values.put("title", title));
+        Optional.ofNullable(patch.getRace()).ifPresent(race -> values.put("race", race));
+        Optional.ofNullable(patch.getProfession()).ifPresent(profession -> values.put("profession", profession));
+        Optional.ofNullable(patch.getBirthday()).ifPresent(birthday -> values.put("birthday", birthday));
+        Optional.ofNullable(patch.getBanned()).ifPresent(banned -> values.put("banned", banned));
+
+        // every row gets the same experience, so the level is the same for all of them too
+        if (patch.getExperience() != null) {
+            levelTable.apply(patch);
+            values.put("experience", patch.getExperience());
+            values.put("level", patch.getLevel());
+            values.put("untilNextLevel", patch.getUntilNextLevel());
+        }
+
+        if (values.isEmpty()) {
+            return 0;
+        }
+
+        boolean countersChange = values.containsKey("race") || values.containsKey("profession") || values.containsKey("banned");
+        Specification<Player> specification = criteria.toSpecification();
+        long updated = 0;
+        Long lastId = 0L;
+
+        while (true) {
+            Specification<Player> chunkSpecification = specification.and(PlayerFilters.seekFilter(lastId));
+
+            // the chunk's rows stay locked from the SELECT until its UPDATE commits
+            List<Long> ids = transactionTemplate.execute(status -> {
+                List<Long> chunk = playerRepository.lockIds(chunkSpecification, bulkChunkSize);
+
+                if (chunk.isEmpty()) {
+                    return chunk;
+                }
+
+                if (countersChange) {
+                    counters.storedRemoving(chunk);
+                }
+
+                playerRepository.updateAll(chunk, values);
+
+                if (countersChange) {
+                    counters.storedAdded(chunk);
+                }
+
+                if (patch.getName() != null) {
+                    searchIndex.indexField(chunk, PlayerSearchIndex.NAME, patch.getName());
+                }
+
+                if (patch.getTitle() != null) {
+                    searchIndex.indexField(chunk, PlayerSearchIndex.TITLE, patch.getTitle());
+                }
+
+                if (queryEngine.isEnabled()) {
+                    List<Player> updatedPlayers = playerRepository.findAllById(chunk);
+                    Transactions.afterCommit(() -> queryEngine.saved(updatedPlayers));
                 }
 
-                Optional.ofNullable(player.getName()).ifPresent(editablePlayer::setName);
-                Optional.ofNullable(player.getTitle()).ifPresent(editablePlayer::setTitle);
-                Optional.ofNullable(player.getRace()).ifPresent(editablePlayer::setRace);
-                Optional.ofNullable(player.getProfession()).ifPresent(editablePlayer::setProfession);
-                Optional.ofNullable(player.getBirthday()).ifPresent(editablePlayer::setBirthday);
-                Optional.ofNullable(player.getBanned()).ifPresent(editablePlayer::setBanned);
-                Optional.ofNullable(player.getExperience()).ifPresent(editablePlayer::setExperience);
-                editablePlayer.setLevel(calculateCurrentLevel(editablePlayer));
-                editablePlayer.setUntilNextLevel(calculateUntilNextLevel(editablePlayer));
+                Transactions.afterCommit(dataVersion::changed);
+                return chunk;
+            });
+
+            updated += ids.size();
 
+            if (ids.size() < bulkChunkSize) {
+                return updated;
             }
-            return playerRepository.save(editablePlayer);
+
+            lastId = ids.get(ids.size() - 1);
         }
     }
 
@@ -148,22 +390,85 @@ public class PlayerServiceImpl implements PlayerService {
     public void deletePlayer(String idString) {
         Long id = validateId(idString);
 
-        if (playerRepository.existsById(id)) {
-            playerRepository.deleteById(id);
-        } else {
+        int deleted = transactionTemplate.execute(status -> {
+            counters.storedRemoving(Collections.singletonList(id));
+            return playerRepository.removeById(id);
+        });
+
+        if (deleted == 0) {
             throw new PlayerNotFoundException("Player is not found.");
         }
+
+        queryEngine.deleted(Collections.singletonList(id));
+        dataVersion.changed();
     }
 
     @Override
-    public Player getPlayer(String idString) {
-        Long id = validateId(idString);
+    public long deletePlayers(List<Long> ids, PlayerCriteria criteria) {
+        long deleted = 0;
 
-        if (!playerRepository.existsById(id)) {
-            throw new PlayerNotFoundException("Player is not found.");
+        if (ids != null && !ids.isEmpty()) {
+            if (!criteria.isEmpty()) {
+                throw new BadRequestException("Specify either player ids or filters, not both.");
+            }
+
+            for (int from = 0; from < ids.size(); from += bulkChunkSize) {
+                List<Long> chunk = ids.subList(from, Math.min(from + bulkChunkSize, ids.size()));
+                deleted += transactionTemplate.execute(status -> deleteChunk(chunk));
+            }
+
+            return deleted;
+        }
+
+        if (criteria.isEmpty()) {
+            throw new BadRequestException("Specify player ids or at least one filter.");
+        }
+
+        Specification<Player> specification = criteria.toSpecification();
+
+        while (true) {
+            int chunkDeleted = transactionTemplate.execute(status -> {
+                List<Long> chunk = playerRepository.lockIds(specification, bulkChunkSize);
+                return chunk.isEmpty() ? 0 : deleteChunk(chunk);
+            });
+
+            deleted += chunkDeleted;
+
+            // deleted rows drop out of the filter, so the next chunk starts over from the first match
+            if (chunkDeleted < bulkChunkSize) {
+                return deleted;
+            }
         }
-        return playerRepository.findById(id).get();
     }
 
+    private int deleteChunk(List<Long> ids) {
+        counters.storedRemoving(ids);
+        int deleted = playerRepository.removeAllByIdIn(ids);
+
+        Transactions.afterCommit(() -> queryEngine.deleted(ids));
+        Transactions.afterCommit(dataVersion::changed);
+
+        return deleted;
+    }
+
+    @Override
+    public CompletableFuture<Long> recalculateLevels() {
+        return levelRecalculationJob.start().thenApply(updated -> {
+            dataVersion.changed();
+            return updated;
+        });
+    }
+
+    @Override
+    public Player getPlayer(String idString) {
+        Long id = validateId(idString);
+
+        return playerRepository.findById(id)
+                .orElseThrow(() -> new PlayerNotFoundException("Player is not found."));
+    }
 
+    @Override
+    public String getDataVersion() {
+        return dataVersion.get();
+    }
 }
@@ -0,0 +1,69 @@
+package com.game.service;
+
+import com.game.entity.Profession;
+import com.game.entity.Race;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Breakdowns of the players matching a criteria, see {@link PlayerService#getStatistics(PlayerCriteria)}.
+ * Values no matching player has are left out of the maps.
+ */
+public class PlayerStatistics {
+
+    private long total;
+    private Map<Race, Long> byRace = new EnumMap<>(Race.class);
+    private Map<Profession, Long> byProfession = new EnumMap<>(Profession.class);
+    private Map<Boolean, Long> byBanned = new TreeMap<>();
+    private Map<Integer, Long> byLevel = new TreeMap<>();
+    private Map<Race, Experience> experienceByRace = new EnumMap<>(Race.class);
+
+    public static class Experience {
+
+        private double average;
+        private double median;
+
+        public Experience(double average, double median) {
+            this.average = average;
+            this.median = median;
+        }
+
+        public double getAverage() {
+            return average;
+        }
+
+        public double getMedian() {
+            return median;
+        }
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public Map<Race, Long> getByRace() {
+        return byRace;
+    }
+
+    public Map<Profession, Long> getByProfession() {
+        return byProfession;
+    }
+
+    public Map<Boolean, Long> getByBanned() {
+        return byBanned;
+    }
+
+    public Map<Integer, Long> getByLevel() {
+        return byLevel;
+    }
+
+    public Map<Race, Experience> getExperienceByRace() {
+        return experienceByRace;
+    }
+}
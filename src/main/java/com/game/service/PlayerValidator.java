@@ -0,0 +1,38 @@
+package com.game.service;
+
+import com.game.entity.Player;
+import com.game.exceptions.BadRequestException;
+import org.springframework.stereotype.Component;
+
+import java.util.Calendar;
+
+/**
+ * Range checks of the player fields that are set; missing fields are left to the caller.
+ */
+@Component
+public class PlayerValidator {
+
+    public void validate(Player player) {
+
+        if (player.getName() != null && (player.getName().length() < 1 || player.getName().length() > 12)) {
+            throw new BadRequestException("Character name is too long or missing.");
+        }
+
+        if (player.getTitle() != null && (player.getTitle().length() < 1 || player.getTitle().length() > 30)) {
+            throw new BadRequestException("Character title is too long or missing.");
+        }
+
+        if (player.getExperience() != null && (player.getExperience() < 1 || player.getExperience() > 10000000)) {
+            throw new BadRequestException("Character experience out of range.");
+        }
+
+        if (player.getBirthday() != null) {
+            Calendar date = Calendar.getInstance();
+            date.setTime(player.getBirthday());
+
+            if (date.get(Calendar.YEAR) < 2000 || date.get(Calendar.YEAR) > 3000) {
+                throw new BadRequestException("Registration date out of range.");
+            }
+        }
+    }
+}
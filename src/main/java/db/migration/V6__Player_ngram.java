@@ -0,0 +1,74 @@
+package db.migration;
+
+import com.game.service.PlayerSearchIndex;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Creates the player_ngram trigram index of {@link PlayerSearchIndex} and fills it for the players already stored.
+ * <p>
+ * Written in Java so that the grams come from {@link PlayerSearchIndex#ngrams(String)} itself; SQL would need
+ * a different sequence generator on MySQL and H2 and lowercases by its own rules.
+ */
+public class V6__Player_ngram extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE player_ngram ("
+                    + "player_id BIGINT(20) NOT NULL, "
+                    + "field VARCHAR(5) NOT NULL, "
+                    + "gram VARCHAR(3) NOT NULL, "
+                    + "FOREIGN KEY (player_id) REFERENCES player (id) ON DELETE CASCADE)");
+            statement.execute("CREATE INDEX player_ngram_lookup ON player_ngram (field, gram, player_id)");
+        }
+
+        try (Statement select = connection.createStatement();
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO player_ngram(player_id, field, gram) VALUES (?, ?, ?)")) {
+
+            select.setFetchSize(BATCH_SIZE);
+            int pending = 0;
+
+            try (ResultSet players = select.executeQuery("SELECT id, name, title FROM player")) {
+                while (players.next()) {
+                    pending += add(insert, players.getLong(1), PlayerSearchIndex.NAME, players.getString(2));
+                    pending += add(insert, players.getLong(1), PlayerSearchIndex.TITLE, players.getString(3));
+
+                    if (pending >= BATCH_SIZE) {
+                        insert.executeBatch();
+                        pending = 0;
+                    }
+                }
+            }
+
+            if (pending > 0) {
+                insert.executeBatch();
+            }
+        }
+    }
+
+    private static int add(PreparedStatement insert, long playerId, String field, String value) throws SQLException {
+        int added = 0;
+
+        for (String gram : PlayerSearchIndex.ngrams(value)) {
+            insert.setLong(1, playerId);
+            insert.setString(2, field);
+            insert.setString(3, gram);
+            insert.addBatch();
+            added++;
+        }
+
+        return added;
+    }
+}
@@ -0,0 +1,18 @@
+-- Indexes for the filter and sort combinations of GET /rest/players and /rest/players/count.
+-- Every sort is (field, id), see PlayerOrder, so id is spelled out as the last column
+-- even though InnoDB appends the primary key to secondary indexes anyway.
+
+-- equality filters on race, profession and banned, counts by them are answered from the index alone
+CREATE INDEX player_race_profession_banned ON player (race, profession, banned);
+
+-- ORDER BY field, id pages and cursors, and the experience, level and birthday range filters
+CREATE INDEX player_experience_id ON player (experience, id);
+CREATE INDEX player_level_id ON player (level, id);
+CREATE INDEX player_birthday_id ON player (birthday, id);
+CREATE INDEX player_name_id ON player (name, id);
+
+-- the most common combination in practice: one race, ordered or filtered by level
+CREATE INDEX player_race_level_id ON player (race, level, id);
+
+-- leaderboards skip banned players
+CREATE INDEX player_banned_level_id ON player (banned, level, id);
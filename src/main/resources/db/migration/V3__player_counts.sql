@@ -0,0 +1,27 @@
+-- Player counts per race, profession and banned, kept current by PlayerCounters.
+-- Every combination gets its row up front, so writes only ever UPDATE it.
+
+CREATE TABLE player_count
+(
+    race       VARCHAR(20) NOT NULL,
+    profession VARCHAR(20) NOT NULL,
+    banned     BIT(1)      NOT NULL,
+    players    BIGINT(20)  NOT NULL,
+    PRIMARY KEY (race, profession, banned)
+);
+
+INSERT INTO player_count (race, profession, banned, players)
+SELECT r.race, p.profession, b.banned, 0
+FROM (SELECT 'HUMAN' AS race UNION ALL SELECT 'DWARF' UNION ALL SELECT 'ELF' UNION ALL SELECT 'GIANT'
+      UNION ALL SELECT 'ORC' UNION ALL SELECT 'TROLL' UNION ALL SELECT 'HOBBIT') r
+         CROSS JOIN (SELECT 'WARRIOR' AS profession UNION ALL SELECT 'ROGUE' UNION ALL SELECT 'SORCERER'
+                     UNION ALL SELECT 'CLERIC' UNION ALL SELECT 'PALADIN' UNION ALL SELECT 'NAZGUL'
+                     UNION ALL SELECT 'WARLOCK' UNION ALL SELECT 'DRUID') p
+         CROSS JOIN (SELECT 0 AS banned UNION ALL SELECT 1) b;
+
+UPDATE player_count
+SET players = (SELECT COUNT(*)
+               FROM player
+               WHERE player.race = player_count.race
+                 AND player.profession = player_count.profession
+                 AND player.banned = player_count.banned);
@@ -0,0 +1,13 @@
+-- Version of the player data as a whole. Every application instance keeps its own in memory for the list, count and
+-- statistics ETags; PlayerDataVersion bumps this row about once a second when it has written, and reads it back,
+-- so that instances notice each other's writes.
+
+CREATE TABLE data_version
+(
+    id      INT        NOT NULL,
+    version BIGINT(20) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO data_version (id, version)
+VALUES (1, 0);
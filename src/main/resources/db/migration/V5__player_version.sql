@@ -0,0 +1,4 @@
+-- Optimistic lock and per-player ETag version, see Player.version. Existing rows start at 0.
+
+ALTER TABLE player
+    ADD COLUMN version INT(10) DEFAULT 0 NOT NULL;
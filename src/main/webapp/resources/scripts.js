@@ -1,7 +1,8 @@
 function loadContent(root, suffix, currentPage) {
 
-    let objects = JSON.parse(Get(root + "/rest/players" + suffix).responseText);
-    let playersCount = Get(root + "/rest/players/count" + suffix).responseText;
+    let response = Get(root + "/rest/players" + suffix);
+    let objects = JSON.parse(response.responseText);
+    let playersCount = response.getResponseHeader("X-Total-Count");
     document.getElementById("count").innerText = "Players found: " + playersCount;
     let table = document.getElementById("mainTable");
     table.innerHTML = "";
@@ -0,0 +1,71 @@
+package com.game.config;
+
+import com.game.service.PlayerSearchIndex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+
+// a database created by hand with init.sql, before there were migrations
+public class MigrationTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(H2)
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V1__create_player_tables.sql")).execute(database);
+        jdbcTemplate.update("INSERT INTO player(name, title, race, profession, birthday, banned, experience, level, untilNextLevel) "
+                + "VALUES ('Ниус', 'Приходящий Без Шума', 'HOBBIT', 'ROGUE', '2010-10-12', false, 58347, 33, 1153)");
+        jdbcTemplate.update("INSERT INTO player(name, title, race, profession, birthday, banned, experience, level, untilNextLevel) "
+                + "VALUES ('Эман', 'Ухастый Летун', 'ELF', 'SORCERER', '2004-06-21', true, 163743, 56, 1557)");
+    }
+
+    @After
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    //test1
+    @Test
+    public void initSqlDatabaseIsMigratedTest() {
+        AppConfig.migrate(database);
+
+        assertEquals("База из init.sql должна считаться версией 1.", "1",
+                jdbcTemplate.queryForObject("SELECT \"version\" FROM \"flyway_schema_history\" WHERE \"type\" = 'BASELINE'", String.class));
+        assertEquals("У существующих игроков должна появиться версия 0.", 2,
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM player WHERE version = 0", Integer.class));
+        assertEquals("Счётчики должны учитывать существующих игроков.", 2L,
+                jdbcTemplate.queryForObject("SELECT SUM(players) FROM player_count", Long.class));
+
+        for (long id = 1; id <= 2; id++) {
+            for (String field : new String[]{PlayerSearchIndex.NAME, PlayerSearchIndex.TITLE}) {
+                String value = jdbcTemplate.queryForObject("SELECT " + field + " FROM player WHERE id = ?", String.class, id);
+                Set<String> grams = new HashSet<>(jdbcTemplate.queryForList(
+                        "SELECT gram FROM player_ngram WHERE player_id = ? AND field = ?", String.class, id, field));
+
+                assertEquals("Индекс триграмм должен быть заполнен для существующих игроков.", PlayerSearchIndex.ngrams(value), grams);
+            }
+        }
+
+        AppConfig.migrate(database);
+        assertEquals("Повторный запуск не должен ничего менять.", 2,
+                jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT player_id) FROM player_ngram", Integer.class));
+    }
+}
@@ -3,6 +3,7 @@ package com.game.controller;
 import com.game.config.AppConfig;
 import com.game.config.MyWebAppInit;
 import com.game.config.WebConfig;
+import org.hibernate.SessionFactory;
 import org.junit.Before;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +17,8 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import javax.persistence.EntityManagerFactory;
+
 @RunWith(SpringJUnit4ClassRunner.class)
 @ActiveProfiles("dev")
 @ContextConfiguration(classes = {AppConfig.class, MyWebAppInit.class, WebConfig.class})
@@ -33,6 +36,9 @@ public abstract class AbstractTest {
 
     @Before
     public void setup() {
+        // @Sql reloads the tables behind Hibernate's back
+        context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getCache().evictAllRegions();
+
         mockMvc = MockMvcBuilders
                 .webAppContextSetup(context)
                 .addFilter(((request, response, chain) -> {
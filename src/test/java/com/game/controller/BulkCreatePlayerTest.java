@@ -0,0 +1,58 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class BulkCreatePlayerTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void createPlayersReportsEveryItemTest() throws Exception {
+        // the count is cached first, the bulk insert must invalidate it
+        mockMvc.perform(get("/rest/players/count"))
+                .andExpect(content().string("40"));
+
+        String body = "[" + TestsHelper.NORMAL_JSON + "," + TestsHelper.TOO_BIG_EXPERIENCE_JSON + ","
+                + TestsHelper.NORMAL_JSON.replace("Амарылис", "Бульварис") + "]";
+
+        String contentAsString = mockMvc.perform(post("/rest/players/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode results = new ObjectMapper().readTree(contentAsString);
+        assertEquals("Должен возвращаться результат для каждого игрока.", 3, results.size());
+        assertEquals("Первый игрок должен быть создан.", 41L, results.get(0).get("id").asLong());
+        assertTrue("Игрок со слишком большим опытом должен быть отклонён.", results.get(1).get("id").isNull()
+                && !results.get(1).get("error").isNull());
+        assertEquals("Третий игрок должен быть создан.", 42L, results.get(2).get("id").asLong());
+
+        mockMvc.perform(get("/rest/players/count"))
+                .andExpect(content().string("42"));
+        mockMvc.perform(get("/rest/players/count?name=ульвар"))
+                .andExpect(content().string("1"));
+        mockMvc.perform(get("/rest/players/42"))
+                .andExpect(status().isOk());
+    }
+
+    //test2
+    @Test
+    public void createPlayersEmptyListTest() throws Exception {
+        mockMvc.perform(post("/rest/players/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("[]"));
+    }
+}
@@ -0,0 +1,67 @@
+package com.game.controller;
+
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "bulk.chunkSize=3")
+public class BulkDeletePlayerTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void deleteByIdsTest() throws Exception {
+        mockMvc.perform(get("/rest/players/2"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/rest/players/bulk-delete")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[1, 2, 3, 4, 999]"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("4"));
+
+        mockMvc.perform(get("/rest/players/count"))
+                .andExpect(content().string("36"));
+        mockMvc.perform(get("/rest/players/2"))
+                .andExpect(status().isNotFound());
+    }
+
+    //test2
+    @Test
+    public void deleteByFilterTest() throws Exception {
+        mockMvc.perform(post("/rest/players/bulk-delete?race=ELF"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("10"));
+
+        mockMvc.perform(get("/rest/players/count?race=ELF"))
+                .andExpect(content().string("0"));
+        mockMvc.perform(get("/rest/players/count"))
+                .andExpect(content().string("30"));
+    }
+
+    //test3
+    @Test
+    public void deleteWithoutFilterTest() throws Exception {
+        mockMvc.perform(post("/rest/players/bulk-delete"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/rest/players/count"))
+                .andExpect(content().string("40"));
+    }
+
+    //test4
+    @Test
+    public void deleteByIdsAndFilterTest() throws Exception {
+        mockMvc.perform(post("/rest/players/bulk-delete?race=ELF")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[1, 2]"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/rest/players/count"))
+                .andExpect(content().string("40"));
+    }
+}
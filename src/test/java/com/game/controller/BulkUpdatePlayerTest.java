@@ -0,0 +1,85 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// a small chunk size makes the 10 elves take several chunks
+@TestPropertySource(properties = "bulk.chunkSize=3")
+public class BulkUpdatePlayerTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void banByFilterTest() throws Exception {
+        // player 6 is an elf and gets cached before the update
+        JsonNode before = mapper.readTree(mockMvc.perform(get("/rest/players/6"))
+                .andReturn().getResponse().getContentAsString());
+        assertEquals("Игрок 6 должен быть эльфом.", "ELF", before.get("race").asText());
+
+        mockMvc.perform(post("/rest/players/bulk-update?race=ELF")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"banned\":true}"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("10"));
+
+        mockMvc.perform(get("/rest/players/count?race=ELF&banned=true"))
+                .andExpect(content().string("10"));
+
+        JsonNode after = mapper.readTree(mockMvc.perform(get("/rest/players/6"))
+                .andReturn().getResponse().getContentAsString());
+        assertEquals("Игрок должен быть забанен после массового обновления.", true, after.get("banned").asBoolean());
+    }
+
+    //test2
+    @Test
+    public void titleAndExperienceByFilterTest() throws Exception {
+        mockMvc.perform(post("/rest/players/bulk-update?race=ELF&profession=SORCERER")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"Бессмертный\",\"experience\":1000}"))
+                .andExpect(status().isOk());
+
+        String sorcerers = mockMvc.perform(get("/rest/players/count?race=ELF&profession=SORCERER"))
+                .andReturn().getResponse().getContentAsString();
+        mockMvc.perform(get("/rest/players/count?title=ессмер"))
+                .andExpect(content().string(sorcerers));
+
+        JsonNode player = mapper.readTree(mockMvc.perform(get("/rest/players/6"))
+                .andReturn().getResponse().getContentAsString());
+        assertEquals("Уровень должен быть пересчитан.", 4, player.get("level").asInt());
+        assertEquals("Опыт до следующего уровня должен быть пересчитан.", 500, player.get("untilNextLevel").asInt());
+    }
+
+    //test3
+    @Test
+    public void invalidPatchTest() throws Exception {
+        mockMvc.perform(post("/rest/players/bulk-update?race=ELF")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"experience\":10000001}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test4
+    @Test
+    public void withoutFilterTest() throws Exception {
+        String banned = mockMvc.perform(get("/rest/players/count?banned=true"))
+                .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(post("/rest/players/bulk-update")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"banned\":true}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/rest/players/count?banned=true"))
+                .andExpect(content().string(banned));
+    }
+}
@@ -0,0 +1,109 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertNotEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class CborTest extends AbstractTest {
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+
+    //test1
+    @Test
+    public void getPlayerAsCborTest() throws Exception {
+        MvcResult jsonResult = mockMvc.perform(get("/rest/players/1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andReturn();
+        MvcResult cborResult = mockMvc.perform(get("/rest/players/1").header(HttpHeaders.ACCEPT, "application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/cbor"))
+                .andReturn();
+
+        JsonNode expected = json.readTree(jsonResult.getResponse().getContentAsByteArray());
+        JsonNode actual = cbor.readTree(cborResult.getResponse().getContentAsByteArray());
+
+        assertTrue("Раса должна передаваться порядковым номером.", actual.get("race").isInt());
+        assertEquals("Неверная раса.", Race.valueOf(expected.get("race").asText()).ordinal(), actual.get("race").asInt());
+        assertEquals("Неверная профессия.", Profession.valueOf(expected.get("profession").asText()).ordinal(), actual.get("profession").asInt());
+        assertTrue("Дата рождения должна передаваться числом.", actual.get("birthday").isIntegralNumber());
+        assertEquals("Неверная дата рождения.", expected.get("birthday").asLong(), actual.get("birthday").asLong());
+        assertEquals("Неверное имя.", expected.get("name").asText(), actual.get("name").asText());
+        assertTrue("CBOR должен быть компактнее JSON.",
+                cborResult.getResponse().getContentAsByteArray().length < jsonResult.getResponse().getContentAsByteArray().length);
+    }
+
+    //test2
+    @Test
+    public void createPlayerFromCborTest() throws Exception {
+        ObjectNode player = cbor.createObjectNode()
+                .put("name", "Имя")
+                .put("title", "Титул")
+                .put("race", Race.DWARF.ordinal())
+                .put("profession", Profession.CLERIC.ordinal())
+                .put("birthday", 988059600000L)
+                .put("experience", 63986);
+
+        MvcResult result = mockMvc.perform(post("/rest/players")
+                .contentType("application/cbor")
+                .header(HttpHeaders.ACCEPT, "application/cbor")
+                .content(cbor.writeValueAsBytes(player)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/cbor"))
+                .andReturn();
+
+        JsonNode created = cbor.readTree(result.getResponse().getContentAsByteArray());
+        assertEquals("Неверная раса.", Race.DWARF.ordinal(), created.get("race").asInt());
+        assertEquals("Неверная дата рождения.", 988059600000L, created.get("birthday").asLong());
+
+        JsonNode stored = json.readTree(mockMvc.perform(get("/rest/players/" + created.get("id").asLong()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray());
+        assertEquals("Игрок должен сохраниться с расой из CBOR.", "DWARF", stored.get("race").asText());
+        assertEquals("Игрок должен сохраниться с профессией из CBOR.", "CLERIC", stored.get("profession").asText());
+        assertEquals("Неверное имя.", "Имя", stored.get("name").asText());
+    }
+
+    //test3
+    @Test
+    public void representationsHaveOwnETagsTest() throws Exception {
+        for (String url : new String[]{"/rest/players/1", "/rest/players?pageSize=5"}) {
+            MvcResult jsonResult = mockMvc.perform(get(url))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                    .andReturn();
+            MvcResult cborResult = mockMvc.perform(get(url).header(HttpHeaders.ACCEPT, "application/cbor"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                    .andReturn();
+
+            String jsonTag = jsonResult.getResponse().getHeader(HttpHeaders.ETAG);
+            String cborTag = cborResult.getResponse().getHeader(HttpHeaders.ETAG);
+            assertNotEquals("JSON и CBOR должны иметь разные ETag.", jsonTag, cborTag);
+
+            mockMvc.perform(get(url).header(HttpHeaders.ACCEPT, "application/cbor").header(HttpHeaders.IF_NONE_MATCH, jsonTag))
+                    .andExpect(status().isOk());
+            mockMvc.perform(get(url).header(HttpHeaders.ACCEPT, "application/cbor").header(HttpHeaders.IF_NONE_MATCH, cborTag))
+                    .andExpect(status().isNotModified());
+            mockMvc.perform(get(url).header(HttpHeaders.ACCEPT, "application/json, application/cbor;q=0.5").header(HttpHeaders.IF_NONE_MATCH, jsonTag))
+                    .andExpect(status().isNotModified());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.game.controller;
+
+import com.game.controller.utils.TestsHelper;
+import com.game.metrics.QueryLog;
+import com.game.service.PlayerDataVersion;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.sql.DataSource;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ConditionalGetTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void getPlayerWithMatchingETagReturnsNotModified() throws Exception {
+        String etag = etag("/rest/players/3");
+
+        String content = mockMvc.perform(get("/rest/players/3").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("При совпадении ETag тело ответа должно быть пустым.", "", content);
+
+        mockMvc.perform(post("/rest/players/3")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"experience\":1000}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/rest/players/3").header("If-None-Match", etag))
+                .andExpect(status().isOk());
+        assertNotEquals("После обновления игрока ETag должен измениться.", etag, etag("/rest/players/3"));
+    }
+
+    //test2
+    @Test
+    public void listAndCountWithMatchingETagReturnNotModifiedUntilWrite() throws Exception {
+        String listTag = etag("/rest/players?race=ELF");
+        String countTag = etag("/rest/players/count?race=ELF");
+
+        mockMvc.perform(get("/rest/players?race=ELF").header("If-None-Match", listTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", listTag));
+        mockMvc.perform(get("/rest/players/count?race=ELF").header("If-None-Match", countTag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(post("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/rest/players?race=ELF").header("If-None-Match", listTag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/count?race=ELF").header("If-None-Match", countTag))
+                .andExpect(status().isOk());
+    }
+
+    //test3
+    @Test
+    public void listTagFollowsWritesOfOtherInstances() throws Exception {
+        String listTag = etag("/rest/players?race=ELF");
+
+        MvcResult notModified = mockMvc.perform(get("/rest/players?race=ELF").header("If-None-Match", listTag))
+                .andExpect(status().isNotModified())
+                .andReturn();
+        assertEquals("Ответ 304 не должен обращаться к базе.", 0,
+                ((QueryLog) notModified.getRequest().getAttribute(QueryLog.ATTRIBUTE)).getCount());
+
+        // another instance on the same database wrote and published its version
+        new JdbcTemplate(context.getBean(DataSource.class)).update("UPDATE data_version SET version = version + 1");
+        context.getBean(PlayerDataVersion.class).sync();
+
+        mockMvc.perform(get("/rest/players?race=ELF").header("If-None-Match", listTag))
+                .andExpect(status().isOk());
+        assertNotEquals("ETag должен меняться после записи другого экземпляра.", listTag, etag("/rest/players?race=ELF"));
+    }
+
+    private String etag(String url) throws Exception {
+        return mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+    }
+}
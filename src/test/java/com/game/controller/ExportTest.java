@@ -0,0 +1,57 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.entity.Race;
+import org.junit.Test;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ExportTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void exportNdjsonTest() throws Exception {
+        MvcResult result = mockMvc.perform(get("/rest/players/export?race=ELF&order=EXPERIENCE"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson;charset=UTF-8"))
+                .andReturn();
+
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertEquals("Должны выгружаться все эльфы.", 10, lines.length);
+
+        List<PlayerInfoTest> players = new ArrayList<>();
+        for (String line : lines) {
+            players.add(mapper.readValue(line, PlayerInfoTest.class));
+        }
+
+        for (int i = 0; i < players.size(); i++) {
+            assertEquals("Выгружен игрок не той расы.", Race.ELF, players.get(i).race);
+            assertTrue("Нарушен порядок сортировки.", i == 0 || players.get(i - 1).experience <= players.get(i).experience);
+        }
+    }
+
+    //test2
+    @Test
+    public void exportCsvTest() throws Exception {
+        MvcResult result = mockMvc.perform(get("/rest/players/export?format=CSV"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"players.csv\""))
+                .andReturn();
+
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertEquals("Первая строка должна быть заголовком.", PlayerExportWriter.CSV_HEADER, lines[0]);
+        assertEquals("Должны выгружаться все игроки.", 41, lines.length);
+        assertTrue("Первым должен идти игрок с id 1.", lines[1].startsWith("1,"));
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.springframework.test.util.AssertionErrors.assertEquals;
@@ -172,4 +173,79 @@ public class GetAllTest extends AbstractTest {
 
         assertEquals("Возвращается не правильный результат при запросе GET /rest/players с параметрами after, before, minExperience и maxExperience.", expected, actual);
     }
+
+    //test9
+    @Test
+    public void getAllReturnsTotalCountHeader() throws Exception {
+        ResultActions resultActions = mockMvc.perform(get("/rest/players?name=ра&pageNumber=1"))
+                .andExpect(status().isOk());
+
+        MvcResult result = resultActions.andReturn();
+        String contentAsString = result.getResponse().getContentAsString();
+        List<PlayerInfoTest> actual = mapper.readValue(contentAsString, typeReference);
+        List<PlayerInfoTest> filtered = testsHelper.getPlayerInfosByName("ра", testsHelper.getAllPlayers());
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/players с параметрами name и pageNumber.",
+                testsHelper.getPlayerInfosByPage(1, 3, filtered), actual);
+        assertEquals("Возвращается не правильный заголовок X-Total-Count при запросе GET /rest/players.",
+                String.valueOf(filtered.size()), result.getResponse().getHeader("X-Total-Count"));
+    }
+
+    //test10
+    @Test
+    public void getAllWithoutCountSkipsTotalCountHeader() throws Exception {
+        ResultActions resultActions = mockMvc.perform(get("/rest/players?pageNumber=2&withCount=false"))
+                .andExpect(status().isOk());
+
+        MvcResult result = resultActions.andReturn();
+        String contentAsString = result.getResponse().getContentAsString();
+        List<PlayerInfoTest> actual = mapper.readValue(contentAsString, typeReference);
+        List<PlayerInfoTest> expected = testsHelper.getPlayerInfosByPage(2, 3,
+                testsHelper.getAllPlayers());
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/players с параметром withCount=false.", expected, actual);
+        assertEquals("Заголовок X-Total-Count не должен возвращаться при withCount=false.",
+                null, result.getResponse().getHeader("X-Total-Count"));
+    }
+
+    //test11
+    @Test
+    public void getAllWithCursorWalksAllPagesForEveryOrder() throws Exception {
+        for (PlayerOrder order : PlayerOrder.values()) {
+            String contentAsString = mockMvc.perform(get("/rest/players?pageSize=1000&order=" + order))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            List<PlayerInfoTest> expected = mapper.readValue(contentAsString, typeReference);
+
+            List<PlayerInfoTest> actual = new ArrayList<>();
+            MvcResult result = mockMvc.perform(get("/rest/players?pageSize=4&order=" + order))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            actual.addAll(mapper.readValue(result.getResponse().getContentAsString(), typeReference));
+
+            String cursor = result.getResponse().getHeader("X-Next-Cursor");
+            while (cursor != null) {
+                result = mockMvc.perform(get("/rest/players?pageSize=4&order=" + order + "&cursor=" + cursor))
+                        .andExpect(status().isOk())
+                        .andReturn();
+                actual.addAll(mapper.readValue(result.getResponse().getContentAsString(), typeReference));
+                cursor = result.getResponse().getHeader("X-Next-Cursor");
+            }
+
+            assertEquals("Возвращается не правильный результат при постраничном обходе GET /rest/players с параметром cursor и order=" + order + ".", expected, actual);
+        }
+    }
+
+    //test12
+    @Test
+    public void getAllWithForeignCursorReturnsBadRequest() throws Exception {
+        String cursor = mockMvc.perform(get("/rest/players?order=NAME"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+
+        mockMvc.perform(get("/rest/players?order=LEVEL&cursor=" + cursor))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/rest/players?cursor=garbage"))
+                .andExpect(status().isBadRequest());
+    }
 }
\ No newline at end of file
@@ -8,6 +8,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertSame;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -151,4 +152,24 @@ public class GetCountTest extends AbstractTest {
 
         assertSame("Во звращается не правильный результат при запросе GET /rest/players/count с параметром banned.", expected, actual);
     }
+
+    //test9
+    @Test
+    public void getCountWithFiltersLongNameAndTitle() throws Exception {
+        String[][] cases = {{"name", "лан"}, {"name", "Ари"}, {"title", "Кар"}, {"title", "карп"}, {"title", "к%ик"}, {"title", "Хи_ик"}};
+
+        for (String[] testCase : cases) {
+            String contentAsString = this.mockMvc.perform(get("/rest/players/count?" + testCase[0] + "=" + testCase[1])
+                    .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            int actual = Integer.parseInt(contentAsString);
+            String regex = ".*" + testCase[1].replace("%", ".*").replace("_", ".") + ".*";
+            long expected = testsHelper.getAllPlayers().stream()
+                    .filter(player -> ("name".equals(testCase[0]) ? player.name : player.title).matches(regex))
+                    .count();
+
+            assertEquals("Возвращается не правильный результат при запросе GET /rest/players/count с параметром " + testCase[0] + "=" + testCase[1] + ".", expected, actual);
+        }
+    }
 }
\ No newline at end of file
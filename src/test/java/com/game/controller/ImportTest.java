@@ -0,0 +1,107 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ImportTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void importNdjsonTest() throws Exception {
+        String body = TestsHelper.NORMAL_JSON + "\n"
+                + "{\"name\": \n"
+                + "\n"
+                + TestsHelper.TOO_BIG_EXPERIENCE_JSON + "\n"
+                + TestsHelper.BANNED_TRUE_JSON + "\n"
+                + "null\n";
+
+        String contentAsString = mockMvc.perform(post("/rest/players/import")
+                .contentType("application/x-ndjson")
+                .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode summary = mapper.readTree(contentAsString);
+        assertEquals("Неверное число принятых записей.", 2, summary.get("accepted").asInt());
+        assertEquals("Неверное число отклонённых записей.", 3, summary.get("rejected").asInt());
+        assertEquals("Отклонённая запись должна указывать свою позицию.", 1, summary.get("errors").get(0).get("index").asInt());
+        assertEquals("Отклонённая запись должна указывать свою позицию.", 2, summary.get("errors").get(1).get("index").asInt());
+        assertEquals("Строка null должна отклоняться как запись.", 4, summary.get("errors").get(2).get("index").asInt());
+
+        mockMvc.perform(get("/rest/players/count"))
+                .andExpect(content().string("42"));
+    }
+
+    //test2
+    @Test
+    public void importGzipCsvExportRoundTripTest() throws Exception {
+        byte[] csv = mockMvc.perform(get("/rest/players/export?race=ELF&format=CSV"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(csv);
+        }
+
+        String contentAsString = mockMvc.perform(post("/rest/players/import")
+                .contentType("text/csv")
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .content(compressed.toByteArray()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode summary = mapper.readTree(contentAsString);
+        assertEquals("Все выгруженные игроки должны быть приняты.", 10, summary.get("accepted").asInt());
+        assertEquals("Не должно быть отклонённых записей.", 0, summary.get("rejected").asInt());
+
+        mockMvc.perform(get("/rest/players/count?race=ELF"))
+                .andExpect(content().string("20"));
+    }
+
+    //test3
+    @Test
+    public void tooLongRecordsTest() throws Exception {
+        char[] padding = new char[70000];
+        Arrays.fill(padding, 'x');
+        String longName = new String(padding);
+
+        JsonNode ndjson = importPlayers("application/x-ndjson",
+                "{\"name\": \"" + longName + "\"}\n" + TestsHelper.NORMAL_JSON + "\n");
+        assertEquals("Неверное число принятых записей NDJSON.", 1, ndjson.get("accepted").asInt());
+        assertEquals("Слишком длинная строка NDJSON должна быть отклонена.", 1, ndjson.get("rejected").asInt());
+        assertEquals("Неверная ошибка для длинной строки.",
+                "Line 1: the record is longer than 65536 characters", ndjson.get("errors").get(0).get("error").asText());
+
+        JsonNode csv = importPlayers("text/csv", "name,title,race,profession,birthday,banned,experience\n"
+                + "\"" + longName + ",Титул,ELF,ROGUE,1104530400000,false,1000\n"
+                + "Имя,Титул,ELF,ROGUE,1104530400000,false,1000\n");
+        assertEquals("Неверное число принятых записей CSV.", 1, csv.get("accepted").asInt());
+        assertEquals("Незакрытая кавычка должна отклонять только свою запись.", 1, csv.get("rejected").asInt());
+        assertEquals("Неверная ошибка для длинной записи.",
+                "Line 2: the record is longer than 65536 characters", csv.get("errors").get(0).get("error").asText());
+    }
+
+    private JsonNode importPlayers(String contentType, String body) throws Exception {
+        return mapper.readTree(mockMvc.perform(post("/rest/players/import")
+                .contentType(contentType)
+                .content(body.getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,67 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.service.LevelTable;
+import com.game.service.PlayerService;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.fail;
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class LevelRecalculationTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlayerService playerService;
+
+    //test1
+    @Test
+    public void levelTableMatchesFormulaTest() {
+        LevelTable levelTable = new LevelTable(50);
+
+        for (int experience = 1; experience <= 10000000; experience++) {
+            int level = (int) ((Math.sqrt(2500 + 200 * experience)) - 50) / 100;
+            int untilNextLevel = 50 * (level + 1) * (level + 2) - experience;
+
+            if (levelTable.level(experience) != level || levelTable.untilNextLevel(experience, level) != untilNextLevel) {
+                fail("Таблица уровней расходится с формулой при опыте " + experience);
+            }
+        }
+    }
+
+    //test2
+    @Test
+    public void recalculateRestoresStoredLevelsTest() throws Exception {
+        JsonNode expected = player(1);
+
+        new JdbcTemplate(dataSource).update("UPDATE player SET level = 0, untilNextLevel = 0");
+
+        mockMvc.perform(post("/rest/players/levels/recalculate"))
+                .andExpect(status().isAccepted());
+        // joins the run the request started, or runs once more over already fixed rows
+        playerService.recalculateLevels().get(30, TimeUnit.SECONDS);
+
+        JsonNode actual = player(1);
+        assertEquals("Уровень должен быть пересчитан.", expected.get("level").asInt(), actual.get("level").asInt());
+        assertEquals("Опыт до следующего уровня должен быть пересчитан.",
+                expected.get("untilNextLevel").asInt(), actual.get("untilNextLevel").asInt());
+    }
+
+    private JsonNode player(long id) throws Exception {
+        return mapper.readTree(mockMvc.perform(get("/rest/players/" + id))
+                .andReturn().getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,29 @@
+package com.game.controller;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class MetricsTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void metricsInPrometheusFormatTest() throws Exception {
+        mockMvc.perform(get("/rest/players/1")).andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/0")).andExpect(status().isBadRequest());
+
+        String metrics = mockMvc.perform(get("/metrics"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue("Должен быть таймер запросов по шаблону URI.", metrics.contains(
+                "http_server_requests_seconds_count{exception=\"None\",method=\"GET\",outcome=\"SUCCESS\",status=\"200\",uri=\"/rest/players/{id}\",}"));
+        assertTrue("Должен считаться запрос с ошибкой.", metrics.contains("outcome=\"CLIENT_ERROR\",status=\"400\",uri=\"/rest/players/{id}\""));
+        assertTrue("Должен быть 99-й перцентиль запросов.", metrics.contains("quantile=\"0.99\""));
+        assertTrue("Должен быть таймер методов сервиса.", metrics.contains("player_service_seconds_count{exception=\"None\",method=\"getPlayer\",}"));
+        assertTrue("Должны быть метрики Hibernate.", metrics.contains("hibernate_entities_loads_total"));
+        assertTrue("Должен быть таймер SQL-запросов.", metrics.contains("jdbc_statements_seconds_count{method=\"executeQuery\",}"));
+    }
+}
@@ -0,0 +1,129 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.repository.PlayerRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class PlayerCacheTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void repeatedGetIsServedFromCache() throws Exception {
+        Statistics statistics = statistics();
+        statistics.clear();
+
+        mockMvc.perform(get("/rest/players/7")).andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/7")).andExpect(status().isOk());
+        // a level filter keeps the count off the player_count table
+        mockMvc.perform(get("/rest/players/count?race=ELF&minLevel=10")).andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/count?race=ELF&minLevel=10")).andExpect(status().isOk());
+
+        assertTrue("Повторный GET /rest/players/{id} должен попадать в кэш второго уровня.",
+                statistics.getSecondLevelCacheHitCount() > 0);
+        assertTrue("Повторный GET /rest/players/count должен попадать в кэш запросов.",
+                statistics.getQueryCacheHitCount() > 0);
+    }
+
+    //test2
+    @Test
+    public void writesInvalidateCachedPlayersAndQueries() throws Exception {
+        mockMvc.perform(get("/rest/players/7")).andExpect(status().isOk());
+        String elves = count("/rest/players/count?race=ELF");
+
+        mockMvc.perform(post("/rest/players/7")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"Новый титул\",\"race\":\"ELF\"}"))
+                .andExpect(status().isOk());
+
+        String contentAsString = mockMvc.perform(get("/rest/players/7"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Обновление игрока должно сбрасывать кэш второго уровня.",
+                "Новый титул", new ObjectMapper().readValue(contentAsString, PlayerInfoTest.class).title);
+        assertEquals("Обновление игрока должно сбрасывать кэш запросов.",
+                String.valueOf(Long.parseLong(elves) + 1), count("/rest/players/count?race=ELF"));
+
+        mockMvc.perform(delete("/rest/players/7")).andExpect(status().isOk());
+
+        mockMvc.perform(get("/rest/players/7")).andExpect(status().isNotFound());
+        assertEquals("Удаление игрока должно сбрасывать кэш запросов.",
+                elves, count("/rest/players/count?race=ELF"));
+    }
+
+    //test3
+    @Test
+    public void deleteKeepsOtherCachedPlayers() throws Exception {
+        mockMvc.perform(get("/rest/players/7")).andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/8")).andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/9")).andExpect(status().isOk());
+
+        mockMvc.perform(delete("/rest/players/8")).andExpect(status().isOk());
+        mockMvc.perform(post("/rest/players/bulk-delete")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[9]"))
+                .andExpect(status().isOk());
+
+        Statistics statistics = statistics();
+        statistics.clear();
+
+        mockMvc.perform(get("/rest/players/7")).andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/8")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/rest/players/9")).andExpect(status().isNotFound());
+
+        assertEquals("Удаление игрока не должно сбрасывать других игроков из кэша второго уровня.",
+                1L, statistics.getSecondLevelCacheHitCount());
+    }
+
+    //test4
+    @Test
+    public void bulkUpdateEvictsOnlyUpdatedPlayers() throws Exception {
+        PlayerRepository repository = context.getBean(PlayerRepository.class);
+        int version = repository.findById(6L).get().getVersion();
+
+        mockMvc.perform(get("/rest/players/6")).andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/7")).andExpect(status().isOk());
+
+        mockMvc.perform(post("/rest/players/bulk-update?race=ELF")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"banned\":true}"))
+                .andExpect(status().isOk());
+
+        Statistics statistics = statistics();
+        statistics.clear();
+
+        mockMvc.perform(get("/rest/players/7")).andExpect(status().isOk());
+        assertEquals("Массовое обновление не должно сбрасывать других игроков из кэша второго уровня.",
+                1L, statistics.getSecondLevelCacheHitCount());
+
+        String contentAsString = mockMvc.perform(get("/rest/players/6"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Массовое обновление должно сбрасывать обновлённых игроков из кэша.",
+                true, new ObjectMapper().readValue(contentAsString, PlayerInfoTest.class).banned);
+        assertEquals("Массовое обновление должно увеличивать версию игрока.",
+                version + 1, (int) repository.findById(6L).get().getVersion());
+    }
+
+    private String count(String url) throws Exception {
+        return mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private Statistics statistics() {
+        return context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+    }
+}
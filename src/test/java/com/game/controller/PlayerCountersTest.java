@@ -0,0 +1,183 @@
+package com.game.controller;
+
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.service.PlayerCounters;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class PlayerCountersTest extends AbstractTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlayerCounters counters;
+
+    //test1
+    @Test
+    public void countersFollowWritesTest() throws Exception {
+        mockMvc.perform(post("/rest/players")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+        assertCountsMatchTable();
+
+        mockMvc.perform(post("/rest/players/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"race\":\"TROLL\",\"profession\":\"DRUID\",\"banned\":true}"))
+                .andExpect(status().isOk());
+        assertCountsMatchTable();
+
+        mockMvc.perform(post("/rest/players/bulk-update?race=ELF")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"profession\":\"NAZGUL\"}"))
+                .andExpect(status().isOk());
+        assertCountsMatchTable();
+
+        mockMvc.perform(delete("/rest/players/2"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/rest/players/bulk-delete?race=HUMAN"))
+                .andExpect(status().isOk());
+        assertCountsMatchTable();
+    }
+
+    //test2
+    @Test
+    public void reconcileFixesDriftTest() throws Exception {
+        new JdbcTemplate(dataSource).update("UPDATE player_count SET players = players + 5");
+
+        counters.reconcile();
+
+        assertCountsMatchTable();
+    }
+
+    //test3
+    @Test
+    public void concurrentDeletesTest() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> statuses = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                statuses.add(executor.submit(() -> mockMvc.perform(delete("/rest/players/3")).andReturn().getResponse().getStatus()));
+            }
+
+            int deleted = 0;
+            for (Future<Integer> status : statuses) {
+                deleted += status.get() == 200 ? 1 : 0;
+            }
+            assertEquals("Игрок должен удалиться ровно один раз.", 1, deleted);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertCountsMatchTable();
+    }
+
+    //test4
+    @Test
+    public void oppositeMovesDoNotDeadlockTest() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            // which waiter gets the released row is up to the database, a wrong lock order deadlocks about every other round
+            for (int i = 0; i < 6; i++) {
+                CountDownLatch locked = new CountDownLatch(1);
+                CountDownLatch release = new CountDownLatch(1);
+
+                // holds the hobbit count so that both moves below queue up behind it
+                Future<?> holder = executor.submit(() -> transactionTemplate.execute(status -> {
+                    new JdbcTemplate(dataSource).queryForList("SELECT players FROM player_count "
+                            + "WHERE race = 'HOBBIT' AND profession = 'ROGUE' AND banned = FALSE FOR UPDATE");
+                    locked.countDown();
+                    await(release);
+                    return null;
+                }));
+                locked.await();
+
+                Future<?> toGiant = executor.submit(() -> move(transactionTemplate, Race.HOBBIT, Race.GIANT));
+                Thread.sleep(200);
+                Future<?> toHobbit = executor.submit(() -> move(transactionTemplate, Race.GIANT, Race.HOBBIT));
+                Thread.sleep(200);
+                release.countDown();
+
+                holder.get();
+                toGiant.get(10, TimeUnit.SECONDS);
+                toHobbit.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertCountsMatchTable();
+    }
+
+    // moves a non-banned rogue between two races, rolled back since no player row changes with it
+    private void move(TransactionTemplate transactionTemplate, Race from, Race to) {
+        transactionTemplate.execute(status -> {
+            Player player = new Player();
+            player.setRace(to);
+            player.setProfession(Profession.ROGUE);
+            player.setBanned(false);
+
+            counters.changed(from, Profession.ROGUE, false, player);
+            status.setRollbackOnly();
+            return null;
+        });
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void assertCountsMatchTable() throws Exception {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        assertEquals("Общее количество игроков не совпадает с таблицей.",
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM player", Long.class), count(""));
+
+        for (Race race : Race.values()) {
+            assertEquals("Количество игроков расы " + race + " не совпадает с таблицей.",
+                    jdbcTemplate.queryForObject("SELECT COUNT(*) FROM player WHERE race = ?", Long.class, race.name()),
+                    count("race=" + race));
+        }
+
+        for (Profession profession : Profession.values()) {
+            assertEquals("Количество незабаненных игроков профессии " + profession + " не совпадает с таблицей.",
+                    jdbcTemplate.queryForObject("SELECT COUNT(*) FROM player WHERE profession = ? AND banned = FALSE",
+                            Long.class, profession.name()),
+                    count("profession=" + profession + "&banned=false"));
+        }
+    }
+
+    private Long count(String query) throws Exception {
+        return Long.valueOf(mockMvc.perform(get("/rest/players/count?" + query))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,93 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.zip.GZIPInputStream;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class PlayerJsonTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void serializerMatchesFieldMappingTest() throws Exception {
+        ObjectMapper reflective = Jackson2ObjectMapperBuilder.json().build();
+        reflective.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        reflective.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+
+        Player full = new Player();
+        full.setId(7L);
+        full.setName("Имя \"в кавычках\"");
+        full.setTitle("Титул\n");
+        full.setRace(Race.ELF);
+        full.setProfession(Profession.DRUID);
+        full.setBirthday(new Date(1104530400000L));
+        full.setBanned(true);
+        full.setExperience(1000);
+        full.setLevel(4);
+        full.setUntilNextLevel(500);
+        full.setVersion(3);
+
+        Player empty = new Player();
+
+        ObjectMapper mapper = context.getBean(ObjectMapper.class);
+        assertEquals("Сериализация игрока должна совпадать с отображением по полям.",
+                reflective.writeValueAsString(Arrays.asList(full, empty)), mapper.writeValueAsString(Arrays.asList(full, empty)));
+    }
+
+    //test2
+    @Test
+    public void largeResponsesAreGzippedTest() throws Exception {
+        MockMvc gzipMockMvc = MockMvcBuilders.webAppContextSetup(context)
+                .addFilter(new GzipResponseFilter(256))
+                .build();
+
+        MvcResult plain = gzipMockMvc.perform(get("/rest/players?pageSize=40"))
+                .andExpect(status().isOk())
+                .andReturn();
+        MvcResult gzipped = gzipMockMvc.perform(get("/rest/players?pageSize=40").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertEquals("Без Accept-Encoding ответ не сжимается.", null, plain.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("Большой ответ должен сжиматься.", "gzip", gzipped.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING));
+
+        byte[] body = StreamUtils.copyToByteArray(new GZIPInputStream(new ByteArrayInputStream(gzipped.getResponse().getContentAsByteArray())));
+        assertEquals("Распакованный ответ должен совпадать с несжатым.",
+                new String(plain.getResponse().getContentAsByteArray(), StandardCharsets.UTF_8), new String(body, StandardCharsets.UTF_8));
+
+        String eTag = plain.getResponse().getHeader(HttpHeaders.ETAG);
+        assertEquals("Сжатый ответ должен получать слабый ETag.", "W/" + eTag, gzipped.getResponse().getHeader(HttpHeaders.ETAG));
+
+        MvcResult revalidated = gzipMockMvc.perform(get("/rest/players?pageSize=40")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .header(HttpHeaders.IF_NONE_MATCH, "W/" + eTag))
+                .andExpect(status().isNotModified())
+                .andReturn();
+        assertEquals("304 на сжатый ответ должен возвращать тот же слабый ETag.",
+                "W/" + eTag, revalidated.getResponse().getHeader(HttpHeaders.ETAG));
+
+        MvcResult small = gzipMockMvc.perform(get("/rest/players/count").header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertEquals("Маленький ответ не сжимается.", null, small.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING));
+    }
+}
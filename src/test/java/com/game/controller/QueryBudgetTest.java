@@ -0,0 +1,52 @@
+package com.game.controller;
+
+import com.game.controller.utils.TestsHelper;
+import com.game.metrics.QueryLog;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// caches are empty at the start of every test, so these are the cold-cache statement counts
+public class QueryBudgetTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void readsStayWithinBudgetTest() throws Exception {
+        assertBudget(get("/rest/players/1"), 1);
+        assertBudget(get("/rest/players?race=ELF&pageSize=5"), 2);
+        assertBudget(get("/rest/players/count?race=ELF"), 1);
+        assertBudget(get("/rest/players/count?minLevel=10"), 1);
+        // total, four breakdowns, experience sums and the medians of all races
+        assertBudget(get("/rest/players/stats?name=а&banned=false"), 7);
+    }
+
+    //test2
+    @Test
+    public void writesStayWithinBudgetTest() throws Exception {
+        assertBudget(post("/rest/players")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.NORMAL_JSON), 4);
+        assertBudget(post("/rest/players/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Новое\",\"race\":\"TROLL\"}"), 5);
+        assertBudget(delete("/rest/players/2"), 3);
+    }
+
+    private void assertBudget(RequestBuilder request, int maxQueries) throws Exception {
+        MvcResult result = mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+        QueryLog queries = (QueryLog) result.getRequest().getAttribute(QueryLog.ATTRIBUTE);
+        String url = result.getRequest().getMethod() + " " + result.getRequest().getRequestURI();
+
+        assertTrue(url + " выполнил " + queries.getCount() + " SQL-запросов, допустимо " + maxQueries + ".",
+                queries.getCount() <= maxQueries);
+        assertTrue(url + " повторяет одинаковые SQL-запросы: " + queries.getRepeated(1),
+                queries.getRepeated(1).isEmpty());
+    }
+}
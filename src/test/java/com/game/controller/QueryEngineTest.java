@@ -0,0 +1,248 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import com.game.engine.PlayerQueryEngine;
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.repository.PlayerRepository;
+import com.game.service.PlayerCriteria;
+import com.game.service.PlayerService;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "engine.memory.enabled=true")
+public class QueryEngineTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final TypeReference<List<PlayerInfoTest>> typeReference = new TypeReference<List<PlayerInfoTest>>() {
+    };
+
+    @Autowired
+    private PlayerQueryEngine queryEngine;
+
+    @Autowired
+    private PlayerService playerService;
+
+    @Autowired
+    private PlayerRepository playerRepository;
+
+    // @Sql resets the table before every test, so the engine has to start from the same rows
+    @Before
+    public void reloadEngine() {
+        queryEngine.load();
+    }
+
+    //test1
+    @Test
+    public void getAllFromEngineMatchesFilters() throws Exception {
+        assertTrue(queryEngine.isEnabled());
+
+        List<PlayerInfoTest> elves = testsHelper.getPlayerInfosByRace(Race.ELF, testsHelper.getAllPlayers());
+        assertPage("/rest/players?race=ELF&pageSize=100", elves);
+
+        List<PlayerInfoTest> rogues = testsHelper.getPlayerInfosByBaned(false,
+                testsHelper.getPlayerInfosByProfession(Profession.ROGUE, testsHelper.getAllPlayers()));
+        assertPage("/rest/players?profession=ROGUE&banned=false&pageSize=100", rogues);
+
+        List<PlayerInfoTest> byExperience = sorted(testsHelper.getPlayerInfosByMinExperience(50000,
+                testsHelper.getPlayerInfosByMaxExperience(120000, testsHelper.getAllPlayers())),
+                Comparator.comparing(player -> player.experience));
+        assertPage("/rest/players?minExperience=50000&maxExperience=120000&order=EXPERIENCE&pageSize=5&pageNumber=1",
+                byExperience, testsHelper.getPlayerInfosByPage(1, 5, byExperience));
+
+        List<PlayerInfoTest> byBirthday = sorted(testsHelper.getPlayerInfosByAfter(1104530400000L,
+                testsHelper.getPlayerInfosByBefore(1230760800000L, testsHelper.getAllPlayers())),
+                Comparator.comparing(player -> player.birthday));
+        assertPage("/rest/players?after=1104530400000&before=1230760800000&order=BIRTHDAY&pageSize=4",
+                byBirthday, testsHelper.getPlayerInfosByPage(0, 4, byBirthday));
+
+        List<PlayerInfoTest> byLevel = sorted(testsHelper.getPlayerInfosByMinLevel(30, testsHelper.getAllPlayers()),
+                Comparator.comparing(player -> player.level));
+        assertPage("/rest/players?minLevel=30&order=LEVEL&pageSize=100", byLevel);
+    }
+
+    //test2
+    @Test
+    public void engineFollowsWrites() throws Exception {
+        long before = count("/rest/players/count?race=DWARF&profession=CLERIC");
+
+        mockMvc.perform(post("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.BANNED_TRUE_JSON))
+                .andExpect(status().isOk());
+        assertEquals("Созданный игрок должен учитываться в GET /rest/players/count.",
+                before + 1, count("/rest/players/count?race=DWARF&profession=CLERIC"));
+
+        mockMvc.perform(post("/rest/players/41")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"race\":\"ORC\"}"))
+                .andExpect(status().isOk());
+        assertEquals("Обновлённый игрок должен учитываться в GET /rest/players/count.",
+                before, count("/rest/players/count?race=DWARF&profession=CLERIC"));
+
+        long all = count("/rest/players/count");
+        mockMvc.perform(delete("/rest/players/41"))
+                .andExpect(status().isOk());
+        assertEquals("Удалённый игрок не должен учитываться в GET /rest/players/count.",
+                all - 1, count("/rest/players/count"));
+    }
+
+    //test3
+    @Test
+    public void rolledBackWriteIsNotApplied() {
+        long before = queryEngine.count(new PlayerCriteria());
+
+        Player player = new Player();
+        player.setName("Откат");
+        player.setTitle("Не сохранится");
+        player.setRace(Race.ORC);
+        player.setProfession(Profession.WARRIOR);
+        player.setBirthday(new Date(1104530400000L));
+        player.setExperience(1000);
+
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).executeWithoutResult(status -> {
+            playerService.createPlayer(player);
+            status.setRollbackOnly();
+        });
+
+        assertEquals("Откаченный игрок не должен попасть в движок.", before, queryEngine.count(new PlayerCriteria()));
+    }
+
+    //test4
+    @Test
+    public void sortedOrdersFollowWrites() throws Exception {
+        mockMvc.perform(post("/rest/players/5")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"experience\":1,\"birthday\":1230760800000}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/rest/players/7")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"experience\":10000000}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/rest/players/1"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/rest/players/20"))
+                .andExpect(status().isOk());
+        // take the rows the deletes freed
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(post("/rest/players/")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestsHelper.NORMAL_JSON))
+                    .andExpect(status().isOk());
+        }
+
+        assertOrdersMatchSql();
+    }
+
+    //test5
+    @Test
+    public void writesDuringRecalculationAreKept() throws Exception {
+        // enough rows that reloading the engine after the recalculation takes a while
+        new JdbcTemplate(context.getBean(DataSource.class)).update("INSERT INTO player(name, title, race, profession, "
+                + "birthday, banned, experience, level, untilNextLevel) SELECT 'Имя', 'Титул', 'ELF', 'ROGUE', '2005-05-05', "
+                + "FALSE, X * 7, 0, 0 FROM SYSTEM_RANGE(1, 20000)");
+        queryEngine.load();
+
+        CompletableFuture<Long> recalculation = playerService.recalculateLevels();
+        int experience = 1;
+
+        while (!recalculation.isDone()) {
+            mockMvc.perform(post("/rest/players/" + (experience % 40 + 1))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"experience\":" + experience * 1000 + "}"))
+                    .andExpect(status().isOk());
+            experience++;
+        }
+        recalculation.get();
+
+        Pageable updated = PageRequest.of(0, 40, PlayerOrder.ID.toSort());
+        assertEquals("Обновления во время пересчёта не должны теряться.",
+                experiences(playerRepository.findAll(updated).getContent()),
+                experiences(queryEngine.findAll(new PlayerCriteria(), updated).getContent()));
+        assertOrdersMatchSql();
+    }
+
+    private void assertOrdersMatchSql() {
+        PlayerCriteria range = new PlayerCriteria();
+        range.setMinExperience(1);
+        range.setMaxExperience(200000);
+        range.setMinLevel(10);
+
+        for (PlayerOrder order : PlayerOrder.values()) {
+            if (order == PlayerOrder.NAME) {
+                continue;
+            }
+
+            for (PlayerCriteria criteria : Arrays.asList(new PlayerCriteria(), range)) {
+                Pageable pageable = PageRequest.of(0, 100, order.toSort());
+                assertEquals("Порядок движка по " + order + " должен совпадать с SQL.",
+                        ids(playerRepository.findAll(criteria.toSpecification(), pageable).getContent()),
+                        ids(queryEngine.findAll(criteria, pageable).getContent()));
+            }
+        }
+    }
+
+    private static List<Integer> experiences(List<Player> players) {
+        return players.stream().map(Player::getExperience).collect(Collectors.toList());
+    }
+
+    private void assertPage(String url, List<PlayerInfoTest> all) throws Exception {
+        assertPage(url, all, all);
+    }
+
+    private void assertPage(String url, List<PlayerInfoTest> all, List<PlayerInfoTest> expected) throws Exception {
+        MvcResult result = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn();
+        List<PlayerInfoTest> actual = mapper.readValue(result.getResponse().getContentAsString(), typeReference);
+
+        assertEquals("Возвращается не правильный результат при запросе GET " + url, expected, actual);
+        assertEquals("Возвращается не правильный заголовок X-Total-Count при запросе GET " + url,
+                String.valueOf(all.size()), result.getResponse().getHeader("X-Total-Count"));
+    }
+
+    private long count(String url) throws Exception {
+        return Long.parseLong(mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    private static List<Long> ids(List<Player> players) {
+        return players.stream().map(Player::getId).collect(Collectors.toList());
+    }
+
+    private static List<PlayerInfoTest> sorted(List<PlayerInfoTest> players, Comparator<PlayerInfoTest> comparator) {
+        return players.stream()
+                .sorted(comparator.thenComparing(player -> player.id))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,102 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.persistence.EntityManagerFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class SparseFieldsTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void sparseFieldsMatchFullPlayersTest() throws Exception {
+        String query = "/rest/players?order=LEVEL&pageSize=10&race=HUMAN";
+        List<String> fields = Arrays.asList("name", "level", "birthday");
+
+        MvcResult full = mockMvc.perform(get(query)).andExpect(status().isOk()).andReturn();
+
+        Statistics statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        MvcResult sparse = mockMvc.perform(get(query + "&fields=name, level,birthday,name"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertEquals("Выборка полей не должна загружать сущности.", 0L, statistics.getEntityLoadCount());
+        assertEquals("Заголовок X-Total-Count должен совпадать.",
+                full.getResponse().getHeader(PlayerRestController.TOTAL_COUNT_HEADER),
+                sparse.getResponse().getHeader(PlayerRestController.TOTAL_COUNT_HEADER));
+
+        ArrayNode expected = mapper.createArrayNode();
+        for (JsonNode player : read(full)) {
+            ObjectNode fieldsOnly = expected.addObject();
+            fields.forEach(field -> fieldsOnly.set(field, player.get(field)));
+        }
+
+        assertEquals("Возвращаются только запрошенные поля в порядке запроса.", expected, read(sparse));
+    }
+
+    //test2
+    @Test
+    public void sparseFieldsCursorTest() throws Exception {
+        JsonNode all = read(mockMvc.perform(get("/rest/players?order=EXPERIENCE&pageSize=100"))
+                .andExpect(status().isOk())
+                .andReturn());
+
+        ArrayNode pages = mapper.createArrayNode();
+        String cursor = "";
+        int requests = 0;
+
+        while (cursor != null) {
+            MvcResult result = mockMvc.perform(get("/rest/players?order=EXPERIENCE&pageSize=7&withCount=false&fields=name" + cursor))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            read(result).forEach(pages::add);
+
+            String next = result.getResponse().getHeader(PlayerRestController.NEXT_CURSOR_HEADER);
+            cursor = next == null ? null : "&cursor=" + next;
+            requests++;
+        }
+
+        assertTrue("Должно быть несколько страниц.", requests > 1);
+        assertEquals("Неверное количество игроков.", all.size(), pages.size());
+        for (int i = 0; i < all.size(); i++) {
+            assertEquals("Неверный порядок игроков.", all.get(i).get("name"), pages.get(i).get("name"));
+            assertEquals("Должно возвращаться только имя.", 1, pages.get(i).size());
+        }
+    }
+
+    //test3
+    @Test
+    public void fieldsParameterTest() throws Exception {
+        JsonNode ids = read(mockMvc.perform(get("/rest/players?fields=id"))
+                .andExpect(status().isOk())
+                .andReturn());
+        assertEquals("Неверный первый игрок.", mapper.createObjectNode().put("id", 1), ids.get(0));
+
+        mockMvc.perform(get("/rest/players?fields=name,version"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/rest/players?fields="))
+                .andExpect(status().isBadRequest());
+    }
+
+    private JsonNode read(MvcResult result) throws Exception {
+        return mapper.readTree(result.getResponse().getContentAsString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,110 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class StatisticsTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void statisticsWithoutFiltersTest() throws Exception {
+        JsonNode actual = statistics("/rest/players/stats");
+        List<PlayerInfoTest> players = testsHelper.getAllPlayers();
+
+        assertEquals("Общее количество игроков не совпадает.", (long) players.size(), actual.get("total").asLong());
+
+        for (Race race : Race.values()) {
+            List<PlayerInfoTest> ofRace = testsHelper.getPlayerInfosByRace(race, players);
+            assertEquals("Количество игроков расы " + race + " не совпадает.",
+                    (long) ofRace.size(), actual.get("byRace").path(race.name()).asLong());
+
+            if (!ofRace.isEmpty()) {
+                double average = ofRace.stream().mapToInt(player -> player.experience).average().getAsDouble();
+                JsonNode experience = actual.get("experienceByRace").get(race.name());
+                assertEquals("Средний опыт расы " + race + " не совпадает.", average, experience.get("average").asDouble());
+                assertEquals("Медиана опыта расы " + race + " не совпадает.", median(ofRace), experience.get("median").asDouble());
+            }
+        }
+
+        for (Profession profession : Profession.values()) {
+            assertEquals("Количество игроков профессии " + profession + " не совпадает.",
+                    (long) testsHelper.getPlayerInfosByProfession(profession, players).size(),
+                    actual.get("byProfession").path(profession.name()).asLong());
+        }
+
+        assertEquals("Количество забаненных игроков не совпадает.",
+                (long) testsHelper.getPlayerInfosByBaned(true, players).size(), actual.get("byBanned").path("true").asLong());
+
+        long levels = 0;
+        for (PlayerInfoTest player : players) {
+            if (player.level == 5) {
+                levels++;
+            }
+        }
+        assertEquals("Количество игроков 5 уровня не совпадает.", levels, actual.get("byLevel").path("5").asLong());
+    }
+
+    //test2
+    @Test
+    public void statisticsWithFiltersTest() throws Exception {
+        JsonNode actual = statistics("/rest/players/stats?banned=false&minLevel=20");
+        List<PlayerInfoTest> players = testsHelper.getPlayerInfosByMinLevel(20,
+                testsHelper.getPlayerInfosByBaned(false, testsHelper.getAllPlayers()));
+
+        assertEquals("Общее количество игроков с фильтрами не совпадает.", (long) players.size(), actual.get("total").asLong());
+        assertEquals("Забаненные игроки не должны попадать в статистику.", true, actual.get("byBanned").path("true").isMissingNode());
+
+        for (Race race : Race.values()) {
+            assertEquals("Количество игроков расы " + race + " с фильтрами не совпадает.",
+                    (long) testsHelper.getPlayerInfosByRace(race, players).size(), actual.get("byRace").path(race.name()).asLong());
+        }
+    }
+
+    //test3
+    @Test
+    public void mediansWithFiltersTest() throws Exception {
+        JsonNode actual = statistics("/rest/players/stats?name=а&after=1104530400000&maxExperience=500000");
+        List<PlayerInfoTest> players = testsHelper.getPlayerInfosByMaxExperience(500000,
+                testsHelper.getPlayerInfosByAfter(1104530400000L,
+                        testsHelper.getPlayerInfosByName("а", testsHelper.getAllPlayers())));
+
+        assertEquals("Общее количество игроков с фильтрами не совпадает.", (long) players.size(), actual.get("total").asLong());
+
+        for (Race race : Race.values()) {
+            List<PlayerInfoTest> ofRace = testsHelper.getPlayerInfosByRace(race, players);
+            JsonNode experience = actual.get("experienceByRace").path(race.name());
+
+            if (ofRace.isEmpty()) {
+                assertEquals("Раса " + race + " без игроков не должна попадать в статистику.", true, experience.isMissingNode());
+            } else {
+                assertEquals("Медиана опыта расы " + race + " с фильтрами не совпадает.", median(ofRace), experience.get("median").asDouble());
+            }
+        }
+    }
+
+    private static double median(List<PlayerInfoTest> players) {
+        int[] sorted = players.stream().mapToInt(player -> player.experience).sorted().toArray();
+        return (sorted[(sorted.length - 1) / 2] + sorted[sorted.length / 2]) / 2.0;
+    }
+
+    private JsonNode statistics(String url) throws Exception {
+        return mapper.readTree(mockMvc.perform(get(url).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+}
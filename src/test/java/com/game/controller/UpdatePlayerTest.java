@@ -12,6 +12,7 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import static org.springframework.test.util.AssertionErrors.assertEquals;
 import static org.springframework.test.util.AssertionErrors.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -181,4 +182,23 @@ public class UpdatePlayerTest extends AbstractTest {
 
         assertEquals("При запросе POST /rest/players/{id} игрок должен обновляться и рейтинг пересчитываться", expected, actual);
     }
+
+    //test12
+    @Test
+    public void updatePlayerNameIsFoundBySearch() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/rest/players/5")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Зорбангар\"}"))
+                .andExpect(status().isOk());
+
+        String found = mockMvc.perform(get("/rest/players/count?name=рбанг"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String old = mockMvc.perform(get("/rest/players/count?name=Элеон"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals("После POST /rest/players/{id} игрок должен находиться по новому имени.", "1", found);
+        assertEquals("После POST /rest/players/{id} игрок не должен находиться по старому имени.", "0", old);
+    }
 }
\ No newline at end of file
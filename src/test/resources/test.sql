@@ -1,19 +1,7 @@
-DROP TABLE IF EXISTS player;
-
-CREATE TABLE player
-(
-    id             BIGINT(20)  NOT NULL AUTO_INCREMENT,
-    name           VARCHAR(12) NULL,
-    title          VARCHAR(30) NULL,
-    race           VARCHAR(20) NULL,
-    profession     VARCHAR(20) NULL,
-    birthday       DATE        NULL,
-    banned         BIT(1)      NULL,
-    experience     INT(10)     NULL,
-    level          INT(3)      NULL,
-    untilNextLevel INT(10)     NULL,
-    PRIMARY KEY (id)
-);
+-- Resets the data, the schema comes from the migrations in db/migration.
+DELETE FROM player_ngram;
+DELETE FROM player;
+ALTER TABLE player ALTER COLUMN id RESTART WITH 1;
 
 INSERT INTO player(name, title, race, profession, birthday, banned, experience, level, untilNextLevel)
 VALUES ('Ниус', 'Приходящий Без Шума', 'HOBBIT', 'ROGUE', '2010-10-12', false, 58347, 33, 1153)
@@ -55,4 +43,21 @@ VALUES ('Ниус', 'Приходящий Без Шума', 'HOBBIT', 'ROGUE', '
      , ('Яра', 'Прельстивая', 'HUMAN', 'CLERIC', '2004-06-12', false, 138306, 52, 4794)
      , ('Иллинас', 'Иероглиф', 'HOBBIT', 'WARRIOR', '2007-06-03', false, 115546, 47, 2054)
      , ('Ардонг', 'Вспышк A', 'HUMAN', 'WARLOCK', '2009-09-16', false, 24984, 21, 316)
-     , ('Аттирис', 'и.о.Карвандоса', 'ELF', 'SORCERER', '2010-04-15', true, 60520, 34, 2480);
\ No newline at end of file
+     , ('Аттирис', 'и.о.Карвандоса', 'ELF', 'SORCERER', '2010-04-15', true, 60520, 34, 2480);
+
+INSERT INTO player_ngram(player_id, field, gram)
+SELECT DISTINCT p.id, 'name', LOWER(SUBSTRING(p.name, r.X, 3))
+FROM player p
+         JOIN SYSTEM_RANGE(1, 30) r ON r.X <= CHAR_LENGTH(p.name) - 2;
+
+INSERT INTO player_ngram(player_id, field, gram)
+SELECT DISTINCT p.id, 'title', LOWER(SUBSTRING(p.title, r.X, 3))
+FROM player p
+         JOIN SYSTEM_RANGE(1, 30) r ON r.X <= CHAR_LENGTH(p.title) - 2;
+
+UPDATE player_count
+SET players = (SELECT COUNT(*)
+               FROM player
+               WHERE player.race = player_count.race
+                 AND player.profession = player_count.profession
+                 AND player.banned = player_count.banned);